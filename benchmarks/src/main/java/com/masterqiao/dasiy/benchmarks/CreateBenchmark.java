@@ -0,0 +1,40 @@
+package com.masterqiao.dasiy.benchmarks;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+
+/**
+ * Creates entities in transactions of {@link #BATCH} operations, so each
+ * operation carries its share of a commit.
+ */
+public class CreateBenchmark extends GraphBenchmark {
+	static final int BATCH = 100;
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void createNode() {
+		try (Transaction tx = db.beginTx()) {
+			for (int i = 0; i < BATCH; i++) {
+				tx.createNode(LABEL).setProperty("name", "n" + i);
+			}
+			tx.commit();
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public void createRelationship() {
+		try (Transaction tx = db.beginTx()) {
+			Node previous = tx.createNode(LABEL);
+			for (int i = 0; i < BATCH; i++) {
+				Node next = tx.createNode(LABEL);
+				previous.createRelationshipTo(next, TYPE);
+				previous = next;
+			}
+			tx.commit();
+		}
+	}
+
+}
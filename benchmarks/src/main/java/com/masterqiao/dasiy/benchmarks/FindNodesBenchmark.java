@@ -0,0 +1,68 @@
+package com.masterqiao.dasiy.benchmarks;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Looks up {@link #nodes} labelled nodes split into {@link #GROUPS} groups by
+ * a property, reading a property of each node found.
+ */
+public class FindNodesBenchmark extends GraphBenchmark {
+	static final int GROUPS = 10;
+
+	@Param({ "1000" })
+	public int nodes;
+
+	private Transaction tx;
+	private int group = 0;
+
+	@Override
+	protected void createData(Transaction tx) {
+		for (int i = 0; i < nodes; i++) {
+			Node node = tx.createNode(LABEL);
+			node.setProperty("group", i % GROUPS);
+			node.setProperty("name", "n" + i);
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void beginTx() {
+		tx = db.beginTx();
+	}
+
+	@TearDown(Level.Iteration)
+	public void closeTx() {
+		tx.close();
+	}
+
+	@Benchmark
+	public long findNodesByProperty() {
+		group = (group + 1) % GROUPS;
+		long length = 0;
+		try (ResourceIterator<Node> found = tx.findNodes(LABEL, "group", group)) {
+			while (found.hasNext()) {
+				length += ((String) found.next().getProperty("name")).length();
+			}
+		}
+		return length;
+	}
+
+	@Benchmark
+	public long findNodesByLabel() {
+		long count = 0;
+		try (ResourceIterator<Node> found = tx.findNodes(LABEL)) {
+			while (found.hasNext()) {
+				found.next();
+				count++;
+			}
+		}
+		return count;
+	}
+
+}
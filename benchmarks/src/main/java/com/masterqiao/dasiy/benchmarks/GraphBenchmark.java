@@ -0,0 +1,60 @@
+package com.masterqiao.dasiy.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.masterqiao.dasiy.DatabaseConfig;
+
+/**
+ * Runs each workload once through the native API of the embedded DBMS and
+ * once through the Remote wrapper over Bolt to the same DBMS. Every fork
+ * starts from an empty database, so the data created in
+ * {@link #createData(Transaction)} is all there is.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class GraphBenchmark {
+	static final Label LABEL = Label.label("Bench");
+	static final RelationshipType TYPE = RelationshipType.withName("LINK");
+
+	@Param({ "native", "remote" })
+	public String api;
+
+	protected GraphDatabaseService db;
+
+	@Setup(Level.Trial)
+	public void setUpDatabase() throws Exception {
+		db = "remote".equals(api) ? DatabaseConfig.getRemoteGraphDatabaseService()
+				: DatabaseConfig.getGraphDatabaseService();
+		try (Transaction tx = db.beginTx()) {
+			createData(tx);
+			tx.commit();
+		}
+	}
+
+	/**
+	 * Creates the data the workload reads, nothing by default.
+	 */
+	protected void createData(Transaction tx) {
+	}
+
+}
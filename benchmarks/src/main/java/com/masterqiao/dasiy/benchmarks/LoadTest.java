@@ -0,0 +1,393 @@
+package com.masterqiao.dasiy.benchmarks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.driver.Config;
+import org.neo4j.driver.ConnectionPoolMetrics;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.exceptions.Neo4jException;
+import org.neo4j.driver.exceptions.TransientException;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.traversal.Evaluators;
+
+import com.masterqiao.dasiy.DatabaseConfig;
+import com.masterqiao.dasiy.RemoteGraphDatabaseService;
+
+/**
+ * Drives a mix of read and write transactions through
+ * {@link RemoteGraphDatabaseService} from an increasing number of threads,
+ * over a {@link SocialGraph} in the database started by
+ * {@link DatabaseConfig}. For each number of threads it reports throughput,
+ * latency percentiles per transaction, retries of transient errors such as
+ * deadlocks, and how saturated the driver's connection pool was.
+ * <p>
+ * Options are given as <code>name=value</code> arguments, see
+ * {@link #DEFAULTS}, e.g. <code>threads=1,8,64 readRatio=0.5 skew=3</code>.
+ */
+public class LoadTest {
+	static final Map<String, String> DEFAULTS = Map.of(
+			"threads", "1,2,4,8,16,32,64",
+			"warmup", "5",
+			"duration", "20",
+			"readRatio", "0.8",
+			"persons", "10000",
+			"friends", "10",
+			"skew", "2",
+			"seed", "42",
+			"poolSize", "100",
+			"acquisitionTimeout", "60");
+
+	private static final int MAX_RETRIES = 5;
+	private static final String DEADLOCK = "Neo.TransientError.Transaction.DeadlockDetected";
+
+	private final RemoteGraphDatabaseService db;
+	private final Driver driver;
+	private final SocialGraph graph;
+	private final double readRatio;
+	private final long seed;
+
+	private volatile boolean running;
+	private volatile boolean recording;
+	private volatile String lastFailure;
+
+	LoadTest(Driver driver, SocialGraph graph, double readRatio, long seed) {
+		this.db = new RemoteGraphDatabaseService(driver);
+		this.driver = driver;
+		this.graph = graph;
+		this.readRatio = readRatio;
+		this.seed = seed;
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = new HashMap<>(DEFAULTS);
+		for (String arg : args) {
+			int split = arg.indexOf('=');
+			if (split < 0 || !DEFAULTS.containsKey(arg.substring(0, split))) {
+				throw new IllegalArgumentException("Unknown option " + arg + ", expected one of " + DEFAULTS.keySet());
+			}
+			options.put(arg.substring(0, split), arg.substring(split + 1));
+		}
+		int poolSize = Integer.parseInt(options.get("poolSize"));
+		Config config = Config.builder().withDriverMetrics().withMaxConnectionPoolSize(poolSize)
+				.withConnectionAcquisitionTimeout(Long.parseLong(options.get("acquisitionTimeout")), TimeUnit.SECONDS)
+				.build();
+		long seed = Long.parseLong(options.get("seed"));
+		try (Driver driver = DatabaseConfig.newDriver(config)) {
+			SocialGraph graph = SocialGraph.create(DatabaseConfig.getGraphDatabaseService(),
+					Integer.parseInt(options.get("persons")), Integer.parseInt(options.get("friends")),
+					Double.parseDouble(options.get("skew")), seed);
+			LoadTest test = new LoadTest(driver, graph, Double.parseDouble(options.get("readRatio")), seed);
+			Duration warmup = Duration.ofSeconds(Long.parseLong(options.get("warmup")));
+			Duration duration = Duration.ofSeconds(Long.parseLong(options.get("duration")));
+			System.out.println("persons=" + graph.size() + " " + options);
+			System.out.println(Level.HEADER);
+			for (String threads : options.get("threads").split(",")) {
+				Level level = test.run(Integer.parseInt(threads.trim()), warmup, duration);
+				System.out.println(level.format(poolSize));
+				if (level.failures > 0) {
+					System.out.println("  last failure: " + test.lastFailure);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs <code>threads</code> clients for the warmup, then records them for
+	 * the duration.
+	 */
+	Level run(int threads, Duration warmup, Duration duration) throws InterruptedException {
+		running = true;
+		recording = false;
+		List<Worker> workers = new ArrayList<>();
+		List<Thread> started = new ArrayList<>();
+		for (int i = 0; i < threads; i++) {
+			Worker worker = new Worker(new Random(seed + i));
+			Thread thread = new Thread(worker, "load-" + i);
+			thread.start();
+			workers.add(worker);
+			started.add(thread);
+		}
+		Thread.sleep(warmup.toMillis());
+
+		PoolSampler pool = new PoolSampler();
+		recording = true;
+		long start = System.nanoTime();
+		long end = start + duration.toNanos();
+		while (System.nanoTime() < end) {
+			pool.sample();
+			Thread.sleep(100);
+		}
+		recording = false;
+		long elapsed = System.nanoTime() - start;
+		pool.sample();
+		running = false;
+		for (Thread thread : started) {
+			thread.join();
+		}
+
+		Level level = new Level(threads, elapsed, pool);
+		for (Worker worker : workers) {
+			level.add(worker);
+		}
+		return level;
+	}
+
+	private class Worker implements Runnable {
+		final Random random;
+		final Latencies reads = new Latencies();
+		final Latencies writes = new Latencies();
+		long retries = 0;
+		long deadlocks = 0;
+		long failures = 0;
+
+		Worker(Random random) {
+			this.random = random;
+		}
+
+		@Override
+		public void run() {
+			while (running) {
+				boolean read = random.nextDouble() < readRatio;
+				int operation = random.nextInt(3);
+				long start = System.nanoTime();
+				if (transaction(read, operation) && recording) {
+					(read ? reads : writes).add(System.nanoTime() - start);
+				}
+			}
+		}
+
+		/**
+		 * Runs one transaction, retrying transient errors the way a driver
+		 * managed transaction would, and returns whether it committed.
+		 */
+		private boolean transaction(boolean read, int operation) {
+			for (int attempt = 0;; attempt++) {
+				try (Transaction tx = db.beginTx()) {
+					if (read) {
+						read(tx, operation);
+					} else {
+						write(tx, operation);
+					}
+					tx.commit();
+					return true;
+				} catch (RuntimeException e) {
+					Neo4jException cause = neo4jCause(e);
+					boolean retry = cause instanceof TransientException && attempt < MAX_RETRIES;
+					if (recording) {
+						if (cause != null && DEADLOCK.equals(cause.code())) {
+							deadlocks++;
+						}
+						if (retry) {
+							retries++;
+						} else {
+							failures++;
+							lastFailure = e.toString();
+						}
+					}
+					if (!retry) {
+						return false;
+					}
+					backOff(attempt);
+				}
+			}
+		}
+
+		private void read(Transaction tx, int operation) {
+			Node person = tx.getNodeById(graph.person(random));
+			switch (operation) {
+			case 0:
+				person.getAllProperties();
+				break;
+			case 1:
+				for (Relationship friend : person.getRelationships(Direction.OUTGOING, SocialGraph.FRIEND)) {
+					friend.getEndNode().getProperty("name");
+				}
+				break;
+			default:
+				// friends of friends
+				tx.traversalDescription().breadthFirst().relationships(SocialGraph.FRIEND, Direction.OUTGOING)
+						.evaluator(Evaluators.toDepth(2)).traverse(person).nodes().forEach(Node::getId);
+			}
+		}
+
+		private void write(Transaction tx, int operation) {
+			Node person = tx.getNodeById(graph.person(random));
+			switch (operation) {
+			case 0:
+				Node post = tx.createNode(SocialGraph.POST);
+				post.setProperty("text", "post" + random.nextInt());
+				post.setProperty("created", System.currentTimeMillis());
+				person.createRelationshipTo(post, SocialGraph.POSTED);
+				break;
+			case 1:
+				person.createRelationshipTo(tx.getNodeById(graph.person(random)), SocialGraph.FRIEND);
+				break;
+			default:
+				person.setProperty("visits", ((Number) person.getProperty("visits", 0L)).longValue() + 1);
+				person.setProperty("lastSeen", System.currentTimeMillis());
+			}
+		}
+
+		private void backOff(int attempt) {
+			try {
+				Thread.sleep(random.nextInt(10 << attempt) + 1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+	}
+
+	private static Neo4jException neo4jCause(Throwable e) {
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			if (cause instanceof Neo4jException) {
+				return (Neo4jException) cause;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Tracks the connection pools of the driver while the load is recorded.
+	 */
+	private class PoolSampler {
+		final long acquired;
+		final long acquisitionTime;
+		final long timedOut;
+		int maxInUse = 0;
+		int maxAcquiring = 0;
+		long acquiredDelta = 0;
+		long acquisitionTimeDelta = 0;
+		long timedOutDelta = 0;
+
+		PoolSampler() {
+			long acquired = 0;
+			long acquisitionTime = 0;
+			long timedOut = 0;
+			for (ConnectionPoolMetrics metrics : driver.metrics().connectionPoolMetrics()) {
+				acquired += metrics.acquired();
+				acquisitionTime += metrics.totalAcquisitionTime();
+				timedOut += metrics.timedOutToAcquire();
+			}
+			this.acquired = acquired;
+			this.acquisitionTime = acquisitionTime;
+			this.timedOut = timedOut;
+		}
+
+		void sample() {
+			int inUse = 0;
+			int acquiring = 0;
+			long acquired = 0;
+			long acquisitionTime = 0;
+			long timedOut = 0;
+			for (ConnectionPoolMetrics metrics : driver.metrics().connectionPoolMetrics()) {
+				inUse += metrics.inUse();
+				acquiring += metrics.acquiring();
+				acquired += metrics.acquired();
+				acquisitionTime += metrics.totalAcquisitionTime();
+				timedOut += metrics.timedOutToAcquire();
+			}
+			maxInUse = Math.max(maxInUse, inUse);
+			maxAcquiring = Math.max(maxAcquiring, acquiring);
+			acquiredDelta = acquired - this.acquired;
+			acquisitionTimeDelta = acquisitionTime - this.acquisitionTime;
+			timedOutDelta = timedOut - this.timedOut;
+		}
+
+	}
+
+	/**
+	 * The results of one number of threads.
+	 */
+	static class Level {
+		static final String HEADER = String.format("%7s %9s %9s %9s | %-22s | %-22s | %7s %9s %8s | %-9s %7s %9s %8s",
+				"threads", "tx/s", "reads/s", "writes/s", "read p50/p99/p999 ms", "write p50/p99/p999 ms",
+				"retries", "deadlocks", "failures", "pool used", "waiting", "acquire", "timeouts");
+
+		final int threads;
+		final long elapsedNanos;
+		final PoolSampler pool;
+		final Latencies reads = new Latencies();
+		final Latencies writes = new Latencies();
+		long retries = 0;
+		long deadlocks = 0;
+		long failures = 0;
+
+		Level(int threads, long elapsedNanos, PoolSampler pool) {
+			this.threads = threads;
+			this.elapsedNanos = elapsedNanos;
+			this.pool = pool;
+		}
+
+		void add(Worker worker) {
+			reads.add(worker.reads);
+			writes.add(worker.writes);
+			retries += worker.retries;
+			deadlocks += worker.deadlocks;
+			failures += worker.failures;
+		}
+
+		String format(int poolSize) {
+			double seconds = elapsedNanos / 1e9;
+			double acquireMillis = pool.acquiredDelta == 0 ? 0
+					: pool.acquisitionTimeDelta / (double) pool.acquiredDelta;
+			return String.format("%7d %9.0f %9.0f %9.0f | %-22s | %-22s | %7d %9d %8d | %4d/%-4d %7d %7.2fms %8d",
+					threads, (reads.size() + writes.size()) / seconds, reads.size() / seconds,
+					writes.size() / seconds, reads.percentiles(), writes.percentiles(), retries, deadlocks, failures,
+					pool.maxInUse, poolSize, pool.maxAcquiring, acquireMillis, pool.timedOutDelta);
+		}
+
+	}
+
+	/**
+	 * The latencies of the transactions of a worker, in nanoseconds.
+	 */
+	static class Latencies {
+		private long[] values = new long[1024];
+		private int size = 0;
+
+		void add(long nanos) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = nanos;
+		}
+
+		void add(Latencies other) {
+			for (int i = 0; i < other.size; i++) {
+				add(other.values[i]);
+			}
+		}
+
+		int size() {
+			return size;
+		}
+
+		String percentiles() {
+			if (size == 0) {
+				return "-";
+			}
+			long[] sorted = Arrays.copyOf(values, size);
+			Arrays.sort(sorted);
+			return String.format("%.2f/%.2f/%.2f", percentile(sorted, 0.5), percentile(sorted, 0.99),
+					percentile(sorted, 0.999));
+		}
+
+		private static double percentile(long[] sorted, double fraction) {
+			int rank = (int) Math.ceil(fraction * sorted.length) - 1;
+			return sorted[Math.max(rank, 0)] / 1e6;
+		}
+
+	}
+
+}
@@ -0,0 +1,57 @@
+package com.masterqiao.dasiy.benchmarks;
+
+import java.util.Map;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Reads and writes the properties of one node, in a transaction per
+ * iteration.
+ */
+public class PropertyBenchmark extends GraphBenchmark {
+	private long id;
+	private Transaction tx;
+	private Node node;
+	private long counter = 0;
+
+	@Override
+	protected void createData(Transaction tx) {
+		Node node = tx.createNode(LABEL);
+		node.setProperty("name", "bench");
+		node.setProperty("count", 0L);
+		node.setProperty("tags", new String[] { "a", "b", "c" });
+		id = node.getId();
+	}
+
+	@Setup(Level.Iteration)
+	public void beginTx() {
+		tx = db.beginTx();
+		node = tx.getNodeById(id);
+	}
+
+	@TearDown(Level.Iteration)
+	public void closeTx() {
+		tx.commit();
+	}
+
+	@Benchmark
+	public Object getProperty() {
+		return node.getProperty("name");
+	}
+
+	@Benchmark
+	public Map<String, Object> getAllProperties() {
+		return node.getAllProperties();
+	}
+
+	@Benchmark
+	public void setProperty() {
+		node.setProperty("count", counter++);
+	}
+
+}
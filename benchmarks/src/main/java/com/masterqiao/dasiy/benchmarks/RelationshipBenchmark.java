@@ -0,0 +1,68 @@
+package com.masterqiao.dasiy.benchmarks;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Expands a node with {@link #degree} outgoing relationships, reading the
+ * other end of each.
+ */
+public class RelationshipBenchmark extends GraphBenchmark {
+	@Param({ "10", "1000" })
+	public int degree;
+
+	private long id;
+	private Transaction tx;
+	private Node node;
+
+	@Override
+	protected void createData(Transaction tx) {
+		Node node = tx.createNode(LABEL);
+		for (int i = 0; i < degree; i++) {
+			node.createRelationshipTo(tx.createNode(LABEL), TYPE);
+		}
+		id = node.getId();
+	}
+
+	@Setup(Level.Iteration)
+	public void beginTx() {
+		tx = db.beginTx();
+		node = tx.getNodeById(id);
+	}
+
+	@TearDown(Level.Iteration)
+	public void closeTx() {
+		tx.close();
+	}
+
+	@Benchmark
+	public long getRelationships() {
+		long sum = 0;
+		for (Relationship relationship : node.getRelationships()) {
+			sum += relationship.getOtherNode(node).getId();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long getRelationshipsByType() {
+		long sum = 0;
+		for (Relationship relationship : node.getRelationships(Direction.OUTGOING, TYPE)) {
+			sum += relationship.getEndNode().getId();
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public int getDegree() {
+		return node.getDegree(TYPE, Direction.OUTGOING);
+	}
+
+}
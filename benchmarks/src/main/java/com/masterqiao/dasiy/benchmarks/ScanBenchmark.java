@@ -0,0 +1,64 @@
+package com.masterqiao.dasiy.benchmarks;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Scans all nodes and relationships of a chain of {@link #nodes} nodes.
+ */
+public class ScanBenchmark extends GraphBenchmark {
+	@Param({ "10000" })
+	public int nodes;
+
+	private Transaction tx;
+
+	@Override
+	protected void createData(Transaction tx) {
+		Node previous = tx.createNode(LABEL);
+		for (int i = 1; i < nodes; i++) {
+			Node next = tx.createNode(LABEL);
+			previous.createRelationshipTo(next, TYPE);
+			previous = next;
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void beginTx() {
+		tx = db.beginTx();
+	}
+
+	@TearDown(Level.Iteration)
+	public void closeTx() {
+		tx.close();
+	}
+
+	@Benchmark
+	public long getAllNodes() {
+		long sum = 0;
+		try (ResourceIterator<Node> all = tx.getAllNodes().iterator()) {
+			while (all.hasNext()) {
+				sum += all.next().getId();
+			}
+		}
+		return sum;
+	}
+
+	@Benchmark
+	public long getAllRelationships() {
+		long sum = 0;
+		try (ResourceIterator<Relationship> all = tx.getAllRelationships().iterator()) {
+			while (all.hasNext()) {
+				sum += all.next().getStartNode().getId();
+			}
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,78 @@
+package com.masterqiao.dasiy.benchmarks;
+
+import java.util.Random;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+
+/**
+ * A synthetic social graph of persons and their friendships, the same for the
+ * same seed. People are picked with a skew towards the first ones, so a few
+ * are popular and contended for, as in a real social network.
+ */
+class SocialGraph {
+	static final Label PERSON = Label.label("Person");
+	static final Label POST = Label.label("Post");
+	static final RelationshipType FRIEND = RelationshipType.withName("FRIEND");
+	static final RelationshipType POSTED = RelationshipType.withName("POSTED");
+
+	private static final int BATCH = 10000;
+
+	private final long[] persons;
+	private final double skew;
+
+	private SocialGraph(long[] persons, double skew) {
+		this.persons = persons;
+		this.skew = skew;
+	}
+
+	/**
+	 * Creates <code>size</code> persons with <code>friends</code> outgoing
+	 * friendships each.
+	 *
+	 * @param skew 1 for uniformly picked people, higher for more popular ones
+	 */
+	static SocialGraph create(GraphDatabaseService db, int size, int friends, double skew, long seed) {
+		Random random = new Random(seed);
+		long[] persons = new long[size];
+		for (int from = 0; from < size; from += BATCH) {
+			try (Transaction tx = db.beginTx()) {
+				for (int i = from; i < Math.min(from + BATCH, size); i++) {
+					Node person = tx.createNode(PERSON);
+					person.setProperty("name", "person" + i);
+					person.setProperty("age", 18 + random.nextInt(60));
+					persons[i] = person.getId();
+				}
+				tx.commit();
+			}
+		}
+		SocialGraph graph = new SocialGraph(persons, skew);
+		for (int from = 0; from < size; from += BATCH / friends + 1) {
+			try (Transaction tx = db.beginTx()) {
+				for (int i = from; i < Math.min(from + BATCH / friends + 1, size); i++) {
+					Node person = tx.getNodeById(persons[i]);
+					for (int j = 0; j < friends; j++) {
+						person.createRelationshipTo(tx.getNodeById(graph.person(random)), FRIEND);
+					}
+				}
+				tx.commit();
+			}
+		}
+		return graph;
+	}
+
+	/**
+	 * Returns the id of a person, picked with the skew of this graph.
+	 */
+	long person(Random random) {
+		return persons[(int) (persons.length * Math.pow(random.nextDouble(), skew))];
+	}
+
+	int size() {
+		return persons.length;
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.masterqiao.dasiy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.driver.Value;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.RelationshipType;
+
+/**
+ * The relationship counts of a node by type and direction, loaded with one
+ * query reading the degrees of the node, so the degree, existence and type
+ * listing calls on the node are answered locally. A summary lives until a
+ * local write touches the relationships of its node, or the summary of
+ * another node takes its slot in the bounded cache of its transaction.
+ */
+class Adjacency {
+	private final String[] types;
+	/*
+	 * The outgoing, incoming and total counts of each type, in this order. A
+	 * loop is counted in all three.
+	 */
+	private final int[] degrees;
+
+	/**
+	 * @param types   the relationship types the degrees were read for
+	 * @param degrees the <code>degrees</code> column of
+	 *                {@link Statements#adjacency(String...)}
+	 */
+	Adjacency(String[] types, Value degrees) {
+		this.types = types;
+		this.degrees = new int[types.length * 3];
+		for (int i = 0; i < this.degrees.length; i++) {
+			this.degrees[i] = degrees.get(i).asInt();
+		}
+	}
+
+	int degree(Direction direction, RelationshipType... types) {
+		int degree = 0;
+		if (types.length == 0) {
+			for (int i = 0; i < this.types.length; i++) {
+				degree += degrees[3 * i + offset(direction)];
+			}
+			return degree;
+		}
+		for (RelationshipType type : types) {
+			int i = indexOf(type.name());
+			if (i >= 0) {
+				degree += degrees[3 * i + offset(direction)];
+			}
+		}
+		return degree;
+	}
+
+	boolean hasRelationship(Direction direction, RelationshipType... types) {
+		return degree(direction, types) > 0;
+	}
+
+	List<RelationshipType> relationshipTypes(TokenRegistry tokens) {
+		List<RelationshipType> list = new ArrayList<>();
+		for (int i = 0; i < types.length; i++) {
+			if (degrees[3 * i + 2] > 0) {
+				list.add(tokens.relationshipType(types[i]));
+			}
+		}
+		return list;
+	}
+
+	private int indexOf(String type) {
+		for (int i = 0; i < types.length; i++) {
+			if (types[i].equals(type)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static int offset(Direction direction) {
+		switch (direction) {
+		case OUTGOING:
+			return 0;
+		case INCOMING:
+			return 1;
+		default:
+			return 2;
+		}
+	}
+
+}
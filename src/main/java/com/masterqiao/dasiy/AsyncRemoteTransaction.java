@@ -0,0 +1,184 @@
+package com.masterqiao.dasiy;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.async.AsyncSession;
+import org.neo4j.driver.async.AsyncTransaction;
+import org.neo4j.driver.async.ResultCursor;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.RelationshipType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A transaction on an {@link AsyncSession}. Operations address nodes and
+ * relationships by id and return immediately; the driver pipelines the
+ * statements on the connection of the transaction, so independent operations
+ * can be issued without waiting for each other. Stages complete on driver
+ * threads, which must not be blocked.
+ * <p>
+ * Operations on a missing entity complete exceptionally with a
+ * {@link NotFoundException} if they read it, and do nothing if they write it.
+ */
+public class AsyncRemoteTransaction {
+	private static final Logger logger = LoggerFactory.getLogger(AsyncRemoteTransaction.class);
+
+	private final AsyncSession session;
+	private final AsyncTransaction tx;
+	private final TokenRegistry tokens;
+
+	AsyncRemoteTransaction(AsyncSession session, AsyncTransaction tx, TokenRegistry tokens) {
+		this.session = session;
+		this.tx = tx;
+		this.tokens = tokens;
+	}
+
+	private CompletionStage<ResultCursor> run(Statement statement, Value parameters) {
+		if (logger.isDebugEnabled()) {
+			logger.debug(statement + " " + parameters);
+		}
+		return tx.runAsync(statement.text(), parameters);
+	}
+
+	private CompletionStage<Record> single(Statement statement, Value parameters, String entity) {
+		return run(statement, parameters).thenCompose(ResultCursor::listAsync).thenApply(records -> {
+			if (records.isEmpty()) {
+				throw new NotFoundException(entity + " not found.");
+			}
+			return records.get(0);
+		});
+	}
+
+	private CompletionStage<Void> write(Statement statement, Value parameters) {
+		return run(statement, parameters).thenCompose(ResultCursor::consumeAsync).thenApply(summary -> null);
+	}
+
+	private CompletionStage<List<Long>> ids(Statement statement, Value parameters) {
+		int idColumn = statement.column("id");
+		return run(statement, parameters).thenCompose(cursor -> cursor.listAsync(r -> r.get(idColumn).asLong()));
+	}
+
+	public CompletionStage<Long> createNode(Label... labels) {
+		Statement statement = Statements.createNode(labels);
+		return run(statement, Values.parameters()).thenCompose(ResultCursor::singleAsync)
+				.thenApply(record -> record.get(0).asLong());
+	}
+
+	public CompletionStage<Boolean> nodeExists(long id) {
+		return run(Statements.NODE_BY_ID, Values.parameters("id", id)).thenCompose(ResultCursor::listAsync)
+				.thenApply(records -> !records.isEmpty());
+	}
+
+	public CompletionStage<Map<String, Object>> getNodeProperties(long id) {
+		return single(Statements.NODE_PROPERTIES, Values.parameters("id", id), nodeName(id))
+				.thenApply(record -> record.get(0).asMap());
+	}
+
+	/**
+	 * Completes with null if the node has no such property.
+	 */
+	public CompletionStage<Object> getNodeProperty(long id, String key) {
+		return single(Statements.NODE_PROPERTY, Values.parameters("id", id, "key", key), nodeName(id))
+				.thenApply(record -> record.get(0).asObject());
+	}
+
+	/**
+	 * A null value removes the property.
+	 */
+	public CompletionStage<Void> setNodeProperty(long id, String key, Object value) {
+		return write(Statements.NODE_SET_PROPERTIES,
+				Values.parameters("id", id, "props", Collections.singletonMap(key, value)));
+	}
+
+	public CompletionStage<List<Label>> getLabels(long id) {
+		return single(Statements.NODE_LABELS, Values.parameters("id", id), nodeName(id))
+				.thenApply(record -> record.get(0).asList(t -> tokens.label(t.asString())));
+	}
+
+	public CompletionStage<Void> addLabel(long id, Label label) {
+		return write(Statements.addLabel(label.name()), Values.parameters("id", id));
+	}
+
+	public CompletionStage<Void> removeLabel(long id, Label label) {
+		return write(Statements.removeLabel(label.name()), Values.parameters("id", id));
+	}
+
+	public CompletionStage<Void> deleteNode(long id) {
+		return write(Statements.NODE_DELETE, Values.parameters("id", id));
+	}
+
+	public CompletionStage<List<Long>> findNodeIds(Label label, String key, Object value) {
+		return ids(Statements.findNodes(label, key), Values.parameters("value1", value));
+	}
+
+	public CompletionStage<Long> createRelationship(long startId, long endId, RelationshipType type) {
+		Value value = Values.parameters("id", startId, "other", endId);
+		return single(Statements.createRelationship(type), value, nodeName(startId) + " or " + nodeName(endId))
+				.thenApply(record -> record.get(0).asLong());
+	}
+
+	public CompletionStage<List<Long>> getRelationshipIds(long nodeId, Direction direction,
+			RelationshipType... types) {
+		return ids(Statements.relationships(direction, types), Values.parameters("id", nodeId));
+	}
+
+	public CompletionStage<Map<String, Object>> getRelationshipProperties(long id) {
+		return single(Statements.RELATIONSHIP_PROPERTIES, Values.parameters("id", id), relationshipName(id))
+				.thenApply(record -> record.get(0).asMap());
+	}
+
+	public CompletionStage<Object> getRelationshipProperty(long id, String key) {
+		return single(Statements.RELATIONSHIP_PROPERTY, Values.parameters("id", id, "key", key), relationshipName(id))
+				.thenApply(record -> record.get(0).asObject());
+	}
+
+	public CompletionStage<Void> setRelationshipProperty(long id, String key, Object value) {
+		return write(Statements.RELATIONSHIP_SET_PROPERTIES,
+				Values.parameters("id", id, "props", Collections.singletonMap(key, value)));
+	}
+
+	public CompletionStage<Void> deleteRelationship(long id) {
+		return write(Statements.RELATIONSHIP_DELETE, Values.parameters("id", id));
+	}
+
+	/**
+	 * Commits once all operations issued so far have completed, and closes the
+	 * session.
+	 */
+	public CompletionStage<Void> commit() {
+		return tx.commitAsync().handle((ignored, error) -> error).thenCompose(this::closeSession);
+	}
+
+	public CompletionStage<Void> rollback() {
+		return tx.rollbackAsync().handle((ignored, error) -> error).thenCompose(this::closeSession);
+	}
+
+	/**
+	 * Closes the session, then completes like the operation that preceded it.
+	 */
+	private CompletionStage<Void> closeSession(Throwable error) {
+		return session.closeAsync().thenApply(ignored -> {
+			if (error != null) {
+				throw RemoteGraphDatabaseService.completionException(error);
+			}
+			return null;
+		});
+	}
+
+	private static String nodeName(long id) {
+		return "Node(id:" + id + ")";
+	}
+
+	private static String relationshipName(long id) {
+		return "Relationship(id:" + id + ")";
+	}
+
+}
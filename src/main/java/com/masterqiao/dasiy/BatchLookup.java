@@ -0,0 +1,47 @@
+package com.masterqiao.dasiy;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of looking up a batch of ids: one handle per requested id in
+ * request order, with null for the ids that do not exist.
+ */
+public class BatchLookup<T> {
+	private final List<T> entities;
+	private final long[] missingIds;
+
+	BatchLookup(List<T> entities, long[] missingIds) {
+		this.entities = Collections.unmodifiableList(entities);
+		this.missingIds = missingIds;
+	}
+
+	/**
+	 * Returns the handles in request order, null where an id does not exist.
+	 */
+	public List<T> getEntities() {
+		return entities;
+	}
+
+	public T get(int index) {
+		return entities.get(index);
+	}
+
+	/**
+	 * Returns the requested ids that do not exist, in request order.
+	 */
+	public long[] getMissingIds() {
+		return missingIds.clone();
+	}
+
+	public boolean isComplete() {
+		return missingIds.length == 0;
+	}
+
+	@Override
+	public String toString() {
+		return "BatchLookup[" + entities.size() + " requested, missing " + Arrays.toString(missingIds) + "]";
+	}
+
+}
@@ -0,0 +1,102 @@
+package com.masterqiao.dasiy;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.neo4j.graphdb.Label;
+
+/**
+ * What {@link RemoteGraphDatabaseService#delete(BulkDelete)} deletes: all
+ * nodes and relationships, the nodes with a label, or the nodes with given
+ * ids. Each batch of {@link #batchSize(int)} entities, or ids, is deleted in
+ * a transaction of its own.
+ */
+public final class BulkDelete {
+	static final int DEFAULT_BATCH_SIZE = 10000;
+
+	private final Label label;
+	private final long[] ids;
+	private final boolean detach;
+	private final int batchSize;
+
+	private BulkDelete(Label label, long[] ids, boolean detach, int batchSize) {
+		this.label = label;
+		this.ids = ids;
+		this.detach = detach;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * All relationships, then all nodes. The relationships are deleted in
+	 * batches of their own, so no transaction grows with the degree of a
+	 * node.
+	 */
+	public static BulkDelete all() {
+		return new BulkDelete(null, null, true, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * The nodes with a label. A node with relationships fails its batch unless
+	 * {@link #detach()} is set.
+	 */
+	public static BulkDelete label(Label label) {
+		return new BulkDelete(Objects.requireNonNull(label), null, false, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * The nodes with the given ids, ids which do not exist are ignored. A node
+	 * with relationships fails its batch unless {@link #detach()} is set.
+	 */
+	public static BulkDelete ids(long... ids) {
+		long[] sorted = Arrays.stream(ids).sorted().distinct().toArray();
+		return new BulkDelete(null, sorted, false, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Returns this deletion, also deleting the relationships of the nodes.
+	 */
+	public BulkDelete detach() {
+		return new BulkDelete(label, ids, true, batchSize);
+	}
+
+	/**
+	 * Returns this deletion with at most <code>batchSize</code> nodes,
+	 * relationships or ids per transaction, 10000 by default.
+	 */
+	public BulkDelete batchSize(int batchSize) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+		}
+		return new BulkDelete(label, ids, detach, batchSize);
+	}
+
+	/**
+	 * Returns whether this deletes everything.
+	 */
+	boolean isAll() {
+		return label == null && ids == null;
+	}
+
+	Label label() {
+		return label;
+	}
+
+	long[] ids() {
+		return ids;
+	}
+
+	boolean isDetach() {
+		return detach;
+	}
+
+	int getBatchSize() {
+		return batchSize;
+	}
+
+	@Override
+	public String toString() {
+		String what = isAll() ? "all" : label != null ? "label " + label.name() : ids.length + " ids";
+		return "BulkDelete[" + what + (detach ? ", detach" : "") + ", batchSize=" + batchSize + "]";
+	}
+
+}
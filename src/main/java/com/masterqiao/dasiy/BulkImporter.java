@@ -0,0 +1,521 @@
+package com.masterqiao.dasiy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.exceptions.Neo4jException;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.QueryExecutionException;
+import org.neo4j.graphdb.RelationshipType;
+
+/**
+ * Imports nodes and relationships in <code>UNWIND</code> batches, each in a
+ * write transaction of its own which the driver retries on transient errors,
+ * from several writers with a session each. The keys of the caller for the
+ * nodes are mapped to their ids in an {@link OffHeapLongLongMap}, so import
+ * the nodes before the relationships between them.
+ * <p>
+ * Relationships are read in chunks, split by the ids of their start and end
+ * nodes into partitions, and written in rounds in which no two writers touch
+ * a node of the same partition, so the writers do not wait for each other's
+ * node locks.
+ * <p>
+ * With a checkpoint file, each committed batch is recorded, along with the
+ * keys and ids of its nodes. Importing the same streams again after a failure
+ * skips the batches recorded, and only batches committed in the instant
+ * before the process died are imported twice.
+ */
+public class BulkImporter implements AutoCloseable {
+	static final int DEFAULT_BATCH_SIZE = 10000;
+	static final int DEFAULT_WRITERS = 4;
+
+	private static final byte NODE_BATCH = 'N';
+	private static final byte RELATIONSHIP_BATCH = 'R';
+
+	private final RemoteGraphDatabaseService db;
+	private final OffHeapLongLongMap ids;
+
+	private int writers = DEFAULT_WRITERS;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private Consumer<ImportProgress> progressListener = progress -> {
+	};
+
+	private FileChannel checkpoint = null;
+	private DataOutputStream checkpointOut = null;
+	private final BitSet nodeBatchesDone = new BitSet();
+	private final BitSet relationshipBatchesDone = new BitSet();
+	private boolean started = false;
+
+	// batches are numbered in the order of the streams, the same on each run
+	private int nodeBatches = 0;
+	private int relationshipBatches = 0;
+
+	private long nodes = 0;
+	private long relationships = 0;
+	private long batches = 0;
+	private long skippedBatches = 0;
+	private long elapsedNanos = 0;
+	private long importStart = 0;
+
+	BulkImporter(RemoteGraphDatabaseService db, long expectedNodes) {
+		this.db = db;
+		this.ids = new OffHeapLongLongMap(expectedNodes);
+	}
+
+	public int getWriters() {
+		return writers;
+	}
+
+	/**
+	 * Sets the number of batches written at once, each through a session of
+	 * its own, 4 by default.
+	 */
+	public void setWriters(int writers) {
+		if (writers <= 0) {
+			throw new IllegalArgumentException("Writers must be positive: " + writers);
+		}
+		this.writers = writers;
+	}
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Sets the number of nodes or relationships per transaction, 10000 by
+	 * default. Resuming from a checkpoint needs the batch size it was written
+	 * with.
+	 */
+	public void setBatchSize(int batchSize) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Sets the listener called after each batch, from the writers but one
+	 * call at a time.
+	 */
+	public void setProgressListener(Consumer<ImportProgress> progressListener) {
+		this.progressListener = Objects.requireNonNull(progressListener);
+	}
+
+	/**
+	 * Records the committed batches to a file, and reads back those recorded
+	 * by an earlier run, which must have imported the same streams with the
+	 * same batch size and writers. Set it before importing.
+	 */
+	public void setCheckpoint(Path file) {
+		if (started || checkpoint != null) {
+			throw new IllegalStateException("Checkpoint must be set once, before importing");
+		}
+		try {
+			checkpoint = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			long valid = readCheckpoint(file);
+			// drops a record cut short by a crash
+			checkpoint.truncate(valid);
+			checkpoint.position(valid);
+			checkpointOut = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(checkpoint)));
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private long readCheckpoint(Path file) throws IOException {
+		long valid = 0;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			while (true) {
+				byte kind = in.readByte();
+				int batch = in.readInt();
+				if (kind == NODE_BATCH) {
+					int count = in.readInt();
+					long[] pairs = new long[count * 2];
+					for (int i = 0; i < pairs.length; i++) {
+						pairs[i] = in.readLong();
+					}
+					for (int i = 0; i < pairs.length; i += 2) {
+						ids.put(pairs[i], pairs[i + 1]);
+					}
+					nodeBatchesDone.set(batch);
+					valid += 1 + 4 + 4 + 8L * pairs.length;
+				} else if (kind == RELATIONSHIP_BATCH) {
+					relationshipBatchesDone.set(batch);
+					valid += 1 + 4;
+				} else {
+					throw new IllegalStateException("Not a checkpoint file: " + file);
+				}
+			}
+		} catch (EOFException e) {
+			return valid;
+		}
+	}
+
+	/**
+	 * Returns the id of the node imported with a key.
+	 */
+	public long getNodeId(long key) {
+		long id = ids.get(key);
+		if (id < 0) {
+			throw new NotFoundException("No node imported with key " + key);
+		}
+		return id;
+	}
+
+	/**
+	 * Creates the nodes, grouped into batches by their labels. The keys must be
+	 * unique across all the nodes imported.
+	 */
+	public ImportProgress importNodes(Stream<ImportNode> nodes) {
+		try (Writers pool = new Writers()) {
+			Map<List<String>, List<ImportNode>> pending = new LinkedHashMap<>();
+			Iterator<ImportNode> iterator = nodes.iterator();
+			while (iterator.hasNext()) {
+				ImportNode node = iterator.next();
+				List<String> labels = Arrays.stream(node.labels()).map(Label::name).collect(Collectors.toList());
+				List<ImportNode> batch = pending.computeIfAbsent(labels, k -> new ArrayList<>());
+				batch.add(node);
+				if (batch.size() == batchSize) {
+					pending.remove(labels);
+					submitNodes(pool, batch);
+				}
+			}
+			for (List<ImportNode> batch : pending.values()) {
+				submitNodes(pool, batch);
+			}
+			pool.await();
+		}
+		return progress();
+	}
+
+	private void submitNodes(Writers pool, List<ImportNode> batch) {
+		int index = nodeBatches++;
+		if (nodeBatchesDone.get(index)) {
+			skipped();
+			return;
+		}
+		pool.submit(() -> {
+			List<Map<String, Object>> rows = new ArrayList<>(batch.size());
+			for (ImportNode node : batch) {
+				Map<String, Object> row = new HashMap<>();
+				row.put("k", node.getKey());
+				row.put("p", node.getProperties());
+				rows.add(row);
+			}
+			Statement statement = Statements.importNodes(batch.get(0).labels());
+			long[] pairs;
+			try (Session session = db.session()) {
+				pairs = session.writeTransaction(tx -> {
+					Result result = db.transaction(tx).run(statement, Values.parameters("batch", rows));
+					long[] created = new long[rows.size() * 2];
+					int i = 0;
+					while (result.hasNext()) {
+						Record record = result.next();
+						created[i++] = record.get(0).asLong();
+						created[i++] = record.get(1).asLong();
+					}
+					return created;
+				});
+			}
+			for (int i = 0; i < pairs.length; i += 2) {
+				ids.put(pairs[i], pairs[i + 1]);
+			}
+			committed(NODE_BATCH, index, pairs, rows.size(), 0);
+		});
+	}
+
+	/**
+	 * Creates the relationships between nodes imported before, in chunks held
+	 * in memory of about <code>2 * writers * writers * batchSize</code>
+	 * relationships.
+	 */
+	public ImportProgress importRelationships(Stream<ImportRelationship> relationships) {
+		int partitions = 2 * writers;
+		long chunkSize = (long) partitions * partitions / 2 * batchSize;
+		try (Writers pool = new Writers()) {
+			List<List<Row>> buckets = buckets(partitions);
+			long chunk = 0;
+			Iterator<ImportRelationship> iterator = relationships.iterator();
+			while (iterator.hasNext()) {
+				ImportRelationship relationship = iterator.next();
+				long startId = endpoint(relationship.getStartKey());
+				long endId = endpoint(relationship.getEndKey());
+				int start = (int) (startId % partitions);
+				int end = (int) (endId % partitions);
+				buckets.get(start * partitions + end).add(new Row(startId, endId, relationship));
+				if (++chunk == chunkSize) {
+					submitChunk(pool, buckets, partitions);
+					buckets = buckets(partitions);
+					chunk = 0;
+				}
+			}
+			submitChunk(pool, buckets, partitions);
+		}
+		return progress();
+	}
+
+	private long endpoint(long key) {
+		long id = ids.get(key);
+		if (id < 0) {
+			throw new NotFoundException("No node imported with key " + key);
+		}
+		return id;
+	}
+
+	private static List<List<Row>> buckets(int partitions) {
+		List<List<Row>> buckets = new ArrayList<>(partitions * partitions);
+		for (int i = 0; i < partitions * partitions; i++) {
+			buckets.add(new ArrayList<>());
+		}
+		return buckets;
+	}
+
+	/**
+	 * Writes a chunk in rounds, each a pairing of the partitions by the circle
+	 * method: every pair of partitions is written in one of the first
+	 * <code>partitions - 1</code> rounds, the relationships within a partition
+	 * in the last, and the next round starts once all writers are done.
+	 */
+	private void submitChunk(Writers pool, List<List<Row>> buckets, int partitions) {
+		int last = partitions - 1;
+		for (int round = 0; round <= last; round++) {
+			for (int i = 0; i < (round < last ? partitions / 2 : partitions); i++) {
+				int a;
+				int b;
+				if (round == last) {
+					a = i;
+					b = i;
+				} else if (i == 0) {
+					a = last;
+					b = round;
+				} else {
+					a = (round + i) % last;
+					b = (round - i + last) % last;
+				}
+				List<Row> rows = new ArrayList<>(buckets.get(a * partitions + b));
+				if (a != b) {
+					rows.addAll(buckets.get(b * partitions + a));
+				}
+				submitRelationships(pool, rows);
+			}
+			pool.await();
+		}
+	}
+
+	/**
+	 * Writes the relationships between two partitions one batch after the
+	 * other, as the batches lock the same nodes.
+	 */
+	private void submitRelationships(Writers pool, List<Row> rows) {
+		Map<String, List<Row>> byType = new TreeMap<>();
+		for (Row row : rows) {
+			byType.computeIfAbsent(row.relationship.getType().name(), k -> new ArrayList<>()).add(row);
+		}
+		List<List<Row>> batches = new ArrayList<>();
+		List<Integer> indexes = new ArrayList<>();
+		for (List<Row> typed : byType.values()) {
+			for (int from = 0; from < typed.size(); from += batchSize) {
+				int index = relationshipBatches++;
+				if (relationshipBatchesDone.get(index)) {
+					skipped();
+				} else {
+					batches.add(typed.subList(from, Math.min(from + batchSize, typed.size())));
+					indexes.add(index);
+				}
+			}
+		}
+		if (batches.isEmpty()) {
+			return;
+		}
+		pool.submit(() -> {
+			try (Session session = db.session()) {
+				for (int i = 0; i < batches.size(); i++) {
+					List<Row> batch = batches.get(i);
+					List<Map<String, Object>> parameters = new ArrayList<>(batch.size());
+					for (Row row : batch) {
+						Map<String, Object> parameter = new HashMap<>();
+						parameter.put("s", row.startId);
+						parameter.put("e", row.endId);
+						parameter.put("p", row.relationship.getProperties());
+						parameters.add(parameter);
+					}
+					RelationshipType type = batch.get(0).relationship.getType();
+					Statement statement = Statements.importRelationships(type);
+					session.writeTransaction(tx -> db.transaction(tx)
+							.run(statement, Values.parameters("batch", parameters)).consume());
+					committed(RELATIONSHIP_BATCH, indexes.get(i), null, 0, batch.size());
+				}
+			}
+		});
+	}
+
+	private synchronized void committed(byte kind, int index, long[] pairs, int nodes, int relationships) {
+		if (checkpointOut != null) {
+			try {
+				checkpointOut.writeByte(kind);
+				checkpointOut.writeInt(index);
+				if (pairs != null) {
+					checkpointOut.writeInt(pairs.length / 2);
+					for (long value : pairs) {
+						checkpointOut.writeLong(value);
+					}
+				}
+				checkpointOut.flush();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+		this.nodes += nodes;
+		this.relationships += relationships;
+		batches++;
+		progressListener.accept(progress());
+	}
+
+	private synchronized void skipped() {
+		skippedBatches++;
+		progressListener.accept(progress());
+	}
+
+	private synchronized ImportProgress progress() {
+		long elapsed = elapsedNanos + (importStart != 0 ? System.nanoTime() - importStart : 0);
+		return new ImportProgress(nodes, relationships, batches, skippedBatches, elapsed);
+	}
+
+	private synchronized void startImport() {
+		started = true;
+		importStart = System.nanoTime();
+	}
+
+	private synchronized void endImport() {
+		elapsedNanos += System.nanoTime() - importStart;
+		importStart = 0;
+	}
+
+	/**
+	 * Closes the checkpoint file and frees the key map.
+	 */
+	@Override
+	public void close() {
+		ids.close();
+		if (checkpoint != null) {
+			try {
+				checkpointOut.close();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	private static class Row {
+		final long startId;
+		final long endId;
+		final ImportRelationship relationship;
+
+		Row(long startId, long endId, ImportRelationship relationship) {
+			this.startId = startId;
+			this.endId = endId;
+			this.relationship = relationship;
+		}
+
+	}
+
+	/**
+	 * Runs batches on the writer threads, with at most two per writer waiting,
+	 * and stops at the first failure once the batches running are done.
+	 */
+	private class Writers implements AutoCloseable {
+		private final int permits = 2 * writers;
+		private final Semaphore free = new Semaphore(permits);
+		private final AtomicReference<Throwable> failure = new AtomicReference<>();
+		private final ExecutorService executor;
+
+		Writers() {
+			AtomicInteger threads = new AtomicInteger();
+			executor = Executors.newFixedThreadPool(writers, runnable -> {
+				Thread thread = new Thread(runnable, "bulk-import-" + threads.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+			startImport();
+		}
+
+		void submit(Runnable batch) {
+			check();
+			free.acquireUninterruptibly();
+			executor.execute(() -> {
+				try {
+					if (failure.get() == null) {
+						batch.run();
+					}
+				} catch (RuntimeException | Error e) {
+					failure.compareAndSet(null, e);
+				} finally {
+					free.release();
+				}
+			});
+		}
+
+		/**
+		 * Waits for the batches submitted, and throws the failure of one.
+		 */
+		void await() {
+			free.acquireUninterruptibly(permits);
+			free.release(permits);
+			check();
+		}
+
+		private void check() {
+			Throwable e = failure.get();
+			if (e instanceof Neo4jException) {
+				throw new QueryExecutionException(e.getMessage(), e, ((Neo4jException) e).code());
+			} else if (e instanceof RuntimeException) {
+				throw (RuntimeException) e;
+			} else if (e != null) {
+				throw (Error) e;
+			}
+		}
+
+		@Override
+		public void close() {
+			free.acquireUninterruptibly(permits);
+			free.release(permits);
+			executor.shutdown();
+			endImport();
+		}
+
+	}
+
+}
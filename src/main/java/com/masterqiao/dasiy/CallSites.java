@@ -0,0 +1,79 @@
+package com.masterqiao.dasiy;
+
+import java.lang.StackWalker.StackFrame;
+import java.security.CodeSource;
+import java.util.Objects;
+
+/**
+ * Finds where a statement was asked for from the stack: the frame of the
+ * caller, and the method of the wrapper it called. The walks stop at the
+ * caller, and whether a class belongs to the wrapper is looked up once per
+ * class.
+ */
+class CallSites {
+	private static final StackWalker WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+	private static final CodeSource WRAPPER = CallSites.class.getProtectionDomain().getCodeSource();
+	private static final String PREFIX = "Remote";
+	private static final ClassValue<Boolean> IS_WRAPPER = new ClassValue<>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			return type.getPackageName().equals(CallSites.class.getPackageName())
+					&& Objects.equals(type.getProtectionDomain().getCodeSource(), WRAPPER);
+		}
+	};
+
+	private CallSites() {
+	}
+
+	/**
+	 * Returns the first frame neither in this wrapper nor in the libraries
+	 * between it and the caller, such as the iterator a loop drives.
+	 */
+	static StackTraceElement caller() {
+		return WALKER.walk(frames -> frames.filter(frame -> !isInternal(frame)).findFirst())
+				.map(StackFrame::toStackTraceElement).orElse(null);
+	}
+
+	/**
+	 * Returns the API method the caller called, like
+	 * <code>Node.getProperty</code> for <code>RemoteNode.getProperty</code>, or
+	 * <code>fallback</code> if the caller entered the wrapper elsewhere, such
+	 * as through an iterator.
+	 */
+	static String apiMethod(String fallback) {
+		StackFrame entry = WALKER.walk(frames -> {
+			StackFrame last = null;
+			for (StackFrame frame : (Iterable<StackFrame>) frames::iterator) {
+				if (isWrapper(frame)) {
+					last = frame;
+				} else if (!isLibrary(frame)) {
+					break;
+				}
+			}
+			return last;
+		});
+		if (entry == null) {
+			return fallback;
+		}
+		String type = entry.getDeclaringClass().getSimpleName();
+		String method = entry.getMethodName();
+		if (!type.startsWith(PREFIX) || entry.getDeclaringClass().isMemberClass() || method.indexOf('$') >= 0) {
+			return fallback;
+		}
+		return type.substring(PREFIX.length()) + "." + method;
+	}
+
+	private static boolean isInternal(StackFrame frame) {
+		return isLibrary(frame) || isWrapper(frame);
+	}
+
+	private static boolean isLibrary(StackFrame frame) {
+		String name = frame.getClassName();
+		return name.startsWith("java.") || name.startsWith("jdk.") || name.startsWith("org.neo4j.");
+	}
+
+	private static boolean isWrapper(StackFrame frame) {
+		return IS_WRAPPER.get(frame.getDeclaringClass());
+	}
+
+}
@@ -0,0 +1,55 @@
+package com.masterqiao.dasiy;
+
+/**
+ * How far a {@link BulkDelete} has come, reported after each of its
+ * transactions and returned once it is done.
+ */
+public class DeleteProgress {
+	private final long nodesDeleted;
+	private final long relationshipsDeleted;
+	private final long transactions;
+	private final long done;
+	private final long total;
+
+	DeleteProgress(long nodesDeleted, long relationshipsDeleted, long transactions, long done, long total) {
+		this.nodesDeleted = nodesDeleted;
+		this.relationshipsDeleted = relationshipsDeleted;
+		this.transactions = transactions;
+		this.done = done;
+		this.total = total;
+	}
+
+	public long getNodesDeleted() {
+		return nodesDeleted;
+	}
+
+	/**
+	 * Returns the relationships deleted, including those detached from the
+	 * deleted nodes.
+	 */
+	public long getRelationshipsDeleted() {
+		return relationshipsDeleted;
+	}
+
+	/**
+	 * Returns the number of transactions committed so far.
+	 */
+	public long getTransactions() {
+		return transactions;
+	}
+
+	/**
+	 * Returns the fraction of the ids or entities to delete that were, from 0
+	 * to 1, counted against the ids given or the counts when it started.
+	 */
+	public double getFraction() {
+		return total == 0 ? 1 : Math.min((double) done / total, 1);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%.1f%% nodes=%d relationships=%d transactions=%d", getFraction() * 100, nodesDeleted,
+				relationshipsDeleted, transactions);
+	}
+
+}
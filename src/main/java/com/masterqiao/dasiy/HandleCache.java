@@ -0,0 +1,91 @@
+package com.masterqiao.dasiy;
+
+import java.util.Arrays;
+
+/**
+ * Canonical entity handles keyed by primitive id, without boxing, or other
+ * per-entity values that can be loaded again, like adjacency summaries. The
+ * cache is direct mapped: each id has exactly one slot, and the table grows on
+ * a slot collision until it reaches its maximum capacity. From then on a colliding id
+ * displaces the older handle, so a long scan never retains more than
+ * <code>maxCapacity</code> handles. A displaced handle stays valid and equal
+ * to its replacement, as handle equality is based on ids.
+ */
+class HandleCache<T> {
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final int maxCapacity;
+	private long[] ids;
+	private Object[] handles;
+	private int mask;
+	private int size = 0;
+
+	HandleCache(int maxCapacity) {
+		this.maxCapacity = Integer.highestOneBit(Math.max(maxCapacity, INITIAL_CAPACITY) - 1) << 1;
+		allocate(INITIAL_CAPACITY);
+	}
+
+	@SuppressWarnings("unchecked")
+	T get(long id) {
+		int slot = slot(id);
+		return ids[slot] == id ? (T) handles[slot] : null;
+	}
+
+	void put(long id, T handle) {
+		int slot = slot(id);
+		while (handles[slot] != null && ids[slot] != id && handles.length < maxCapacity) {
+			grow();
+			slot = slot(id);
+		}
+		if (handles[slot] == null) {
+			size++;
+		}
+		ids[slot] = id;
+		handles[slot] = handle;
+	}
+
+	void remove(long id) {
+		int slot = slot(id);
+		if (ids[slot] == id && handles[slot] != null) {
+			ids[slot] = -1L;
+			handles[slot] = null;
+			size--;
+		}
+	}
+
+	void clear() {
+		if (size > 0) {
+			allocate(INITIAL_CAPACITY);
+		}
+	}
+
+	private int slot(long id) {
+		long h = id * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+	private void grow() {
+		long[] oldIds = ids;
+		Object[] oldHandles = handles;
+		allocate(handles.length << 1);
+		for (int i = 0; i < oldHandles.length; i++) {
+			if (oldHandles[i] != null) {
+				int slot = slot(oldIds[i]);
+				if (handles[slot] == null) {
+					size++;
+				}
+				ids[slot] = oldIds[i];
+				handles[slot] = oldHandles[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		ids = new long[capacity];
+		Arrays.fill(ids, -1L);
+		handles = new Object[capacity];
+		mask = capacity - 1;
+		size = 0;
+	}
+
+}
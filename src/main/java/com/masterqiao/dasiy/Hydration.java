@@ -0,0 +1,84 @@
+package com.masterqiao.dasiy;
+
+import java.util.Arrays;
+
+/**
+ * What node and relationship queries return besides ids. A hydrated query
+ * returns the labels of nodes and the full or projected property map of nodes
+ * and relationships in the same record as the id, and seeds the caches of the
+ * transaction with them, so reading them afterwards needs no further query.
+ */
+public final class Hydration {
+
+	/**
+	 * Ids only, every later read is a query.
+	 */
+	public static final Hydration NONE = new Hydration(false, null);
+
+	/**
+	 * Labels and all properties.
+	 */
+	public static final Hydration ALL = new Hydration(true, null);
+
+	private final boolean enabled;
+	private final String[] keys;
+	private final String key;
+
+	private Hydration(boolean enabled, String[] keys) {
+		this.enabled = enabled;
+		this.keys = keys;
+		if (!enabled) {
+			this.key = "";
+		} else if (keys == null) {
+			this.key = "*";
+		} else {
+			this.key = "." + String.join("\u0000", keys);
+		}
+	}
+
+	/**
+	 * Labels and the given properties only, for entities with large property
+	 * maps of which few keys are read. Reading another key is a query.
+	 */
+	public static Hydration properties(String... keys) {
+		return new Hydration(true, keys.clone());
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Returns the projected property keys, or null if all properties are
+	 * returned.
+	 */
+	String[] keys() {
+		return keys;
+	}
+
+	/**
+	 * Returns a key identifying the statements compiled for this hydration.
+	 */
+	String key() {
+		return key;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof Hydration && ((Hydration) obj).key.equals(key);
+	}
+
+	@Override
+	public int hashCode() {
+		return key.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		if (!enabled) {
+			return "Hydration[none]";
+		}
+		return "Hydration[" + (keys == null ? "all" : Arrays.toString(keys)) + "]";
+	}
+
+}
@@ -0,0 +1,40 @@
+package com.masterqiao.dasiy;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+
+import org.neo4j.graphdb.Label;
+
+/**
+ * A node for {@link BulkImporter#importNodes(java.util.stream.Stream)},
+ * identified by a key of the caller which relationships refer to.
+ */
+public final class ImportNode {
+	private final long key;
+	private final Map<String, Object> properties;
+	private final Label[] labels;
+
+	public ImportNode(long key, Label... labels) {
+		this(key, Collections.emptyMap(), labels);
+	}
+
+	public ImportNode(long key, Map<String, Object> properties, Label... labels) {
+		this.key = key;
+		this.properties = Objects.requireNonNull(properties);
+		this.labels = labels.clone();
+	}
+
+	public long getKey() {
+		return key;
+	}
+
+	public Map<String, Object> getProperties() {
+		return properties;
+	}
+
+	Label[] labels() {
+		return labels;
+	}
+
+}
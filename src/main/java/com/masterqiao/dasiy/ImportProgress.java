@@ -0,0 +1,70 @@
+package com.masterqiao.dasiy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How far a {@link BulkImporter} has come, reported after each of its
+ * batches and returned once an import is done.
+ */
+public class ImportProgress {
+	private final long nodes;
+	private final long relationships;
+	private final long batches;
+	private final long skippedBatches;
+	private final long elapsedNanos;
+
+	ImportProgress(long nodes, long relationships, long batches, long skippedBatches, long elapsedNanos) {
+		this.nodes = nodes;
+		this.relationships = relationships;
+		this.batches = batches;
+		this.skippedBatches = skippedBatches;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * Returns the nodes created so far by this importer.
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Returns the relationships created so far by this importer.
+	 */
+	public long getRelationships() {
+		return relationships;
+	}
+
+	/**
+	 * Returns the number of batches committed so far.
+	 */
+	public long getBatches() {
+		return batches;
+	}
+
+	/**
+	 * Returns the number of batches skipped as the checkpoint had them
+	 * committed by an earlier run.
+	 */
+	public long getSkippedBatches() {
+		return skippedBatches;
+	}
+
+	public long getElapsed(TimeUnit unit) {
+		return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Returns the nodes and relationships created per second of the import.
+	 */
+	public double getRowsPerSecond() {
+		return elapsedNanos == 0 ? 0 : (nodes + relationships) * 1e9 / elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("nodes=%d relationships=%d batches=%d skipped=%d rows/s=%.0f", nodes, relationships,
+				batches, skippedBatches, getRowsPerSecond());
+	}
+
+}
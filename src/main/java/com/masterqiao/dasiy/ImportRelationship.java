@@ -0,0 +1,47 @@
+package com.masterqiao.dasiy;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+
+import org.neo4j.graphdb.RelationshipType;
+
+/**
+ * A relationship for
+ * {@link BulkImporter#importRelationships(java.util.stream.Stream)}, between
+ * the nodes imported with the start and end keys.
+ */
+public final class ImportRelationship {
+	private final long startKey;
+	private final long endKey;
+	private final RelationshipType type;
+	private final Map<String, Object> properties;
+
+	public ImportRelationship(long startKey, long endKey, RelationshipType type) {
+		this(startKey, endKey, type, Collections.emptyMap());
+	}
+
+	public ImportRelationship(long startKey, long endKey, RelationshipType type, Map<String, Object> properties) {
+		this.startKey = startKey;
+		this.endKey = endKey;
+		this.type = Objects.requireNonNull(type);
+		this.properties = Objects.requireNonNull(properties);
+	}
+
+	public long getStartKey() {
+		return startKey;
+	}
+
+	public long getEndKey() {
+		return endKey;
+	}
+
+	public RelationshipType getType() {
+		return type;
+	}
+
+	public Map<String, Object> getProperties() {
+		return properties;
+	}
+
+}
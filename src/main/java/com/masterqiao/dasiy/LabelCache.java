@@ -0,0 +1,60 @@
+package com.masterqiao.dasiy;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Label sets of nodes, keyed by node id, seeded by hydrated queries and by
+ * {@link RemoteNode#getLabels()} with the property cache enabled, and kept in
+ * sync by local writes. A cache lives as long as the
+ * {@link RemoteTransaction} owning it, and holds at most
+ * <code>maxEntries</code> nodes, dropping the least recently used.
+ */
+class LabelCache {
+	private final Map<Long, Set<String>> entries;
+
+	LabelCache(int maxEntries) {
+		entries = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Set<String>> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	Set<String> get(long id) {
+		return entries.get(id);
+	}
+
+	void put(long id, Collection<String> labels) {
+		entries.put(id, new LinkedHashSet<>(labels));
+	}
+
+	void add(long id, String label) {
+		Set<String> labels = entries.get(id);
+		if (labels != null) {
+			labels.add(label);
+		}
+	}
+
+	void remove(long id, String label) {
+		Set<String> labels = entries.get(id);
+		if (labels != null) {
+			labels.remove(label);
+		}
+	}
+
+	void evict(long id) {
+		entries.remove(id);
+	}
+
+	void clear() {
+		entries.clear();
+	}
+
+}
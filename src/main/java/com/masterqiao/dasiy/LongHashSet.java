@@ -0,0 +1,119 @@
+package com.masterqiao.dasiy;
+
+import java.util.Arrays;
+
+/**
+ * A set of primitive longs with open addressing, for the visited sets of
+ * traversals, which would otherwise box every node and relationship id.
+ * Entity ids are never negative, but any value can be stored.
+ */
+class LongHashSet {
+	private static final long FREE = Long.MIN_VALUE;
+
+	private long[] slots;
+	private int mask;
+	private int size = 0;
+	private boolean containsFree = false;
+
+	LongHashSet() {
+		this(16);
+	}
+
+	LongHashSet(int expectedSize) {
+		allocate(Integer.highestOneBit(Math.max(expectedSize * 2, 16) - 1) << 1);
+	}
+
+	/**
+	 * Returns true if the value was not in the set yet.
+	 */
+	boolean add(long value) {
+		if (value == FREE) {
+			boolean added = !containsFree;
+			containsFree = true;
+			return added;
+		}
+		int slot = slot(value);
+		while (slots[slot] != FREE) {
+			if (slots[slot] == value) {
+				return false;
+			}
+			slot = (slot + 1) & mask;
+		}
+		slots[slot] = value;
+		if (++size * 2 > slots.length) {
+			grow();
+		}
+		return true;
+	}
+
+	boolean contains(long value) {
+		if (value == FREE) {
+			return containsFree;
+		}
+		int slot = slot(value);
+		while (slots[slot] != FREE) {
+			if (slots[slot] == value) {
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	int size() {
+		return containsFree ? size + 1 : size;
+	}
+
+	boolean isEmpty() {
+		return size() == 0;
+	}
+
+	void clear() {
+		Arrays.fill(slots, FREE);
+		size = 0;
+		containsFree = false;
+	}
+
+	/**
+	 * Returns the values in no particular order.
+	 */
+	long[] toArray() {
+		long[] values = new long[size()];
+		int i = 0;
+		for (long value : slots) {
+			if (value != FREE) {
+				values[i++] = value;
+			}
+		}
+		if (containsFree) {
+			values[i] = FREE;
+		}
+		return values;
+	}
+
+	private int slot(long value) {
+		long h = value * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+
+	private void grow() {
+		long[] old = slots;
+		allocate(old.length << 1);
+		for (long value : old) {
+			if (value != FREE) {
+				int slot = slot(value);
+				while (slots[slot] != FREE) {
+					slot = (slot + 1) & mask;
+				}
+				slots[slot] = value;
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		slots = new long[capacity];
+		Arrays.fill(slots, FREE);
+		mask = capacity - 1;
+	}
+
+}
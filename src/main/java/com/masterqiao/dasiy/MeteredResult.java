@@ -0,0 +1,129 @@
+package com.masterqiao.dasiy;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.summary.ResultSummary;
+
+/**
+ * A result counting the rows read from it, which reports itself to a
+ * {@link MetricsRegistry} once exhausted or consumed. A result left unread is
+ * reported by its transaction when the transaction ends, so an outer result
+ * read around the statements of a loop counts all of its rows.
+ */
+class MeteredResult implements Result {
+	private final Result result;
+	private final String method;
+	private final String template;
+	private final MetricsRegistry metrics;
+	private final long fetchSize;
+	private final long start;
+	private final Consumer<MeteredResult> onFinish;
+
+	private long rows = 0;
+	private boolean finished = false;
+
+	/**
+	 * @param onFinish called once this result is reported, such as to stop
+	 *                 tracking it
+	 */
+	MeteredResult(Result result, String method, String template, MetricsRegistry metrics, long fetchSize,
+			long start, Consumer<MeteredResult> onFinish) {
+		this.result = result;
+		this.method = method;
+		this.template = template;
+		this.metrics = metrics;
+		this.fetchSize = fetchSize;
+		this.start = start;
+		this.onFinish = onFinish;
+	}
+
+	/**
+	 * Reports this result with the rows read so far, once.
+	 */
+	void finish() {
+		if (finished) {
+			return;
+		}
+		finished = true;
+		onFinish.accept(this);
+		// the first pull is sent with the statement, each further batch costs one
+		long roundTrips = fetchSize > 0 ? 1 + rows / fetchSize : 1;
+		metrics.record(method, template, System.nanoTime() - start, rows, roundTrips);
+	}
+
+	@Override
+	public List<String> keys() {
+		return result.keys();
+	}
+
+	@Override
+	public boolean hasNext() {
+		boolean hasNext = result.hasNext();
+		if (!hasNext) {
+			finish();
+		}
+		return hasNext;
+	}
+
+	@Override
+	public Record next() {
+		Record record = result.next();
+		rows++;
+		return record;
+	}
+
+	@Override
+	public Record single() {
+		try {
+			Record record = result.single();
+			rows++;
+			return record;
+		} finally {
+			finish();
+		}
+	}
+
+	@Override
+	public Record peek() {
+		return result.peek();
+	}
+
+	@Override
+	public Stream<Record> stream() {
+		Spliterator<Record> spliterator = Spliterators.spliteratorUnknownSize(this,
+				Spliterator.IMMUTABLE | Spliterator.ORDERED);
+		return StreamSupport.stream(spliterator, false);
+	}
+
+	@Override
+	public List<Record> list() {
+		List<Record> list = result.list();
+		rows += list.size();
+		finish();
+		return list;
+	}
+
+	@Override
+	public <T> List<T> list(Function<Record, T> mapFunction) {
+		List<T> list = result.list(mapFunction);
+		rows += list.size();
+		finish();
+		return list;
+	}
+
+	@Override
+	public ResultSummary consume() {
+		ResultSummary summary = result.consume();
+		finish();
+		return summary;
+	}
+
+}
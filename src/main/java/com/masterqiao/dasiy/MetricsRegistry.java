@@ -0,0 +1,31 @@
+package com.masterqiao.dasiy;
+
+/**
+ * Receives the statements run by the Remote wrapper, see
+ * {@link RemoteGraphDatabaseService#setMetricsRegistry(MetricsRegistry)}.
+ * Implementations are called on the threads running the statements, so they
+ * must be thread safe and cheap. {@link RemoteMetrics} keeps them in memory,
+ * {@link #NONE} is the default.
+ */
+public interface MetricsRegistry {
+
+	/**
+	 * Records nothing, and saves the bookkeeping of results altogether.
+	 */
+	MetricsRegistry NONE = (method, template, latencyNanos, rows, roundTrips) -> {
+	};
+
+	/**
+	 * @param method       the API method the statement ran for, like
+	 *                     <code>Node.getProperty</code>
+	 * @param template     the statement text, whose ids and values are
+	 *                     parameters
+	 * @param latencyNanos the time from sending the statement to consuming its
+	 *                     result
+	 * @param rows         the number of rows streamed
+	 * @param roundTrips   the number of Bolt round trips, estimated from the
+	 *                     rows and the fetch size
+	 */
+	void record(String method, String template, long latencyNanos, long rows, long roundTrips);
+
+}
@@ -0,0 +1,152 @@
+package com.masterqiao.dasiy;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A map from long keys to non-negative long values, kept in direct buffers
+ * outside the heap, for hundreds of millions of entries without boxing or
+ * garbage collection pauses. The keys are spread over segments, each an open
+ * addressing table of 16 bytes per slot that doubles when 3/4 full; a value
+ * is stored plus one, so a zero slot is free. Segments are locked on their
+ * own, so writers rarely wait for each other.
+ */
+class OffHeapLongLongMap implements AutoCloseable {
+	private static final int SEGMENT_BITS = 6;
+	private static final int SLOT_BYTES = 16;
+	// 1 GiB per segment, as buffer sizes and offsets are ints
+	private static final int MAX_SLOTS = 1 << 26;
+
+	private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+
+	/**
+	 * @param expectedSize the number of entries to size the tables for
+	 */
+	OffHeapLongLongMap(long expectedSize) {
+		long perSegment = Math.max(expectedSize / segments.length, 1);
+		int slots = 16;
+		while (slots < MAX_SLOTS && slots * 3L / 4 < perSegment) {
+			slots <<= 1;
+		}
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = new Segment(slots);
+		}
+	}
+
+	void put(long key, long value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("Value must not be negative: " + value);
+		}
+		long hash = hash(key);
+		segments[(int) (hash >>> (64 - SEGMENT_BITS))].put(key, hash, value);
+	}
+
+	/**
+	 * Returns the value of a key, or -1 if there is none.
+	 */
+	long get(long key) {
+		long hash = hash(key);
+		return segments[(int) (hash >>> (64 - SEGMENT_BITS))].get(key, hash);
+	}
+
+	long size() {
+		long size = 0;
+		for (Segment segment : segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Drops the buffers, which are freed once collected.
+	 */
+	@Override
+	public void close() {
+		for (Segment segment : segments) {
+			segment.clear();
+		}
+	}
+
+	private static long hash(long key) {
+		// the finalizer of MurmurHash3, so sequential keys spread over segments
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return key;
+	}
+
+	private static class Segment {
+		private ByteBuffer table;
+		private int mask;
+		private int size = 0;
+
+		Segment(int slots) {
+			table = ByteBuffer.allocateDirect(slots * SLOT_BYTES);
+			mask = slots - 1;
+		}
+
+		synchronized void put(long key, long hash, long value) {
+			int slot = find(key, hash);
+			if (table.getLong(slot * SLOT_BYTES + 8) == 0) {
+				if ((size + 1) * 4L > (mask + 1) * 3L) {
+					grow();
+					slot = find(key, hash);
+				}
+				size++;
+			}
+			table.putLong(slot * SLOT_BYTES, key);
+			table.putLong(slot * SLOT_BYTES + 8, value + 1);
+		}
+
+		synchronized long get(long key, long hash) {
+			return table.getLong(find(key, hash) * SLOT_BYTES + 8) - 1;
+		}
+
+		synchronized int size() {
+			return size;
+		}
+
+		synchronized void clear() {
+			table = ByteBuffer.allocateDirect(SLOT_BYTES);
+			mask = 0;
+			size = 0;
+		}
+
+		/**
+		 * Returns the slot of the key, or the free slot it would take.
+		 */
+		private int find(long key, long hash) {
+			int slot = (int) hash & mask;
+			while (true) {
+				int offset = slot * SLOT_BYTES;
+				if (table.getLong(offset + 8) == 0 || table.getLong(offset) == key) {
+					return slot;
+				}
+				slot = (slot + 1) & mask;
+			}
+		}
+
+		private void grow() {
+			int slots = (mask + 1) << 1;
+			if (slots > MAX_SLOTS) {
+				throw new IllegalStateException("Map segment full at " + size + " entries");
+			}
+			ByteBuffer old = table;
+			int oldSlots = mask + 1;
+			table = ByteBuffer.allocateDirect(slots * SLOT_BYTES);
+			mask = slots - 1;
+			for (int i = 0; i < oldSlots; i++) {
+				long value = old.getLong(i * SLOT_BYTES + 8);
+				if (value != 0) {
+					long key = old.getLong(i * SLOT_BYTES);
+					int slot = find(key, hash(key));
+					table.putLong(slot * SLOT_BYTES, key);
+					table.putLong(slot * SLOT_BYTES + 8, value);
+				}
+			}
+		}
+
+	}
+
+}
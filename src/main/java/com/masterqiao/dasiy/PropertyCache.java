@@ -0,0 +1,136 @@
+package com.masterqiao.dasiy;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.neo4j.driver.Values;
+
+/**
+ * Property maps of nodes or relationships, keyed by entity id, loaded by a
+ * single query on first access and kept in sync by local writes. A cache
+ * lives as long as the {@link RemoteTransaction} owning it, and holds at most
+ * <code>maxEntries</code> entities: the least recently used one is dropped
+ * and loaded again when read, so a hydrated scan of a large graph does not
+ * keep it all on the heap.
+ * <p>
+ * An entry is either complete, or partial when it was seeded by a projected
+ * hydration: a partial entry only knows the values of its known keys.
+ */
+class PropertyCache {
+	private final Map<Long, Map<String, Object>> entries;
+	private final Map<Long, Set<String>> knownKeys = new HashMap<>();
+
+	PropertyCache(int maxEntries) {
+		entries = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Map<String, Object>> eldest) {
+				if (size() <= maxEntries) {
+					return false;
+				}
+				knownKeys.remove(eldest.getKey());
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Returns the property map of an entity if it is completely cached.
+	 */
+	Map<String, Object> get(long id) {
+		return knownKeys.containsKey(id) ? null : entries.get(id);
+	}
+
+	void put(long id, Map<String, Object> properties) {
+		entries.put(id, new HashMap<>(properties));
+		knownKeys.remove(id);
+	}
+
+	/**
+	 * Caches the values of some keys of an entity, a null value meaning the
+	 * property does not exist. A complete entry is left as it is.
+	 */
+	void putPartial(long id, Map<String, Object> properties) {
+		if (entries.containsKey(id) && !knownKeys.containsKey(id)) {
+			return;
+		}
+		Map<String, Object> values = entries.computeIfAbsent(id, k -> new HashMap<>());
+		Set<String> keys = knownKeys.computeIfAbsent(id, k -> new HashSet<>());
+		properties.forEach((key, value) -> {
+			keys.add(key);
+			if (value == null) {
+				values.remove(key);
+			} else {
+				values.put(key, value);
+			}
+		});
+	}
+
+	/**
+	 * Returns whether the value of a property is cached, including it being
+	 * known not to exist.
+	 */
+	boolean knows(long id, String key) {
+		if (!entries.containsKey(id)) {
+			return false;
+		}
+		Set<String> keys = knownKeys.get(id);
+		return keys == null || keys.contains(key);
+	}
+
+	/**
+	 * Returns the cached value of a known property, null if it does not exist.
+	 */
+	Object value(long id, String key) {
+		Map<String, Object> properties = entries.get(id);
+		return properties != null ? properties.get(key) : null;
+	}
+
+	/**
+	 * Values are stored the way the server would return them, so a cached
+	 * read answers exactly what an uncached one would.
+	 */
+	void set(long id, String key, Object value) {
+		Map<String, Object> properties = entries.get(id);
+		if (properties == null) {
+			return;
+		}
+		Object val = Values.value(value).asObject();
+		if (val == null) {
+			properties.remove(key);
+		} else {
+			properties.put(key, val);
+		}
+		known(id, key);
+	}
+
+	void remove(long id, String key) {
+		Map<String, Object> properties = entries.get(id);
+		if (properties != null) {
+			properties.remove(key);
+			known(id, key);
+		}
+	}
+
+	private void known(long id, String key) {
+		Set<String> keys = knownKeys.get(id);
+		if (keys != null) {
+			keys.add(key);
+		}
+	}
+
+	void evict(long id) {
+		entries.remove(id);
+		knownKeys.remove(id);
+	}
+
+	void clear() {
+		entries.clear();
+		knownKeys.clear();
+	}
+
+}
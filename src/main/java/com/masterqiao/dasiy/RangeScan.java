@@ -0,0 +1,239 @@
+package com.masterqiao.dasiy;
+
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.neo4j.driver.Value;
+import org.neo4j.graphdb.ResourceIterable;
+import org.neo4j.graphdb.ResourceIterator;
+
+/**
+ * A scan of all nodes or relationships. Iterating it, or a sequential stream
+ * of it, reads through the transaction that made it. The spliterator splits
+ * the id space into ranges for a parallel stream, and each range is read in a
+ * transaction on a session of its own, so the scan is not capped at the
+ * throughput of one connection.
+ * <p>
+ * The ids are split up to the highest id, looked up once when the scan
+ * starts. The count of entities, which the server answers from its count
+ * store, tells how densely the ids are used, so a range is split while it
+ * holds about {@link #MIN_RANGE} entities or more per half, however sparse
+ * the ids are. Entities created above the highest id meanwhile are not read.
+ * <p>
+ * The range transactions only see committed data, and end with their range
+ * or when the stream is closed: the entities a parallel stream passes on are
+ * bound to them, so read what is needed within the stream, or hydrate it.
+ */
+class RangeScan<T> implements ResourceIterable<T> {
+
+	/**
+	 * Smallest number of entities a range is split into, as estimated from
+	 * the count.
+	 */
+	static final long MIN_RANGE = RemoteTransaction.BATCH_SIZE;
+
+	/**
+	 * Reads the entities with ids from <code>from</code> included to
+	 * <code>to</code> excluded in a range transaction.
+	 */
+	@FunctionalInterface
+	interface Range<T> {
+		ResourceIterator<T> read(RemoteTransaction scan, long from, long to);
+	}
+
+	private final RemoteTransaction tx;
+	private final Supplier<ResourceIterator<T>> all;
+	private final Statement count;
+	private final Statement maxId;
+	private final Range<T> range;
+
+	RangeScan(RemoteTransaction tx, Supplier<ResourceIterator<T>> all, Statement count, Statement maxId,
+			Range<T> range) {
+		this.tx = tx;
+		this.all = all;
+		this.count = count;
+		this.maxId = maxId;
+		this.range = range;
+	}
+
+	@Override
+	public ResourceIterator<T> iterator() {
+		return all.get();
+	}
+
+	@Override
+	public Spliterator<T> spliterator() {
+		if (!tx.canScanInParallel()) {
+			return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.NONNULL | Spliterator.DISTINCT);
+		}
+		return new RangeSpliterator(new Split(), 0, -1, true);
+	}
+
+	/**
+	 * Returns a stream of the scan, which closing ends the reads and range
+	 * transactions still open.
+	 */
+	@Override
+	public Stream<T> stream() {
+		if (!tx.canScanInParallel()) {
+			ResourceIterator<T> iterator = iterator();
+			Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(iterator,
+					Spliterator.NONNULL | Spliterator.DISTINCT);
+			return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+		}
+		Split split = new Split();
+		return StreamSupport.stream(new RangeSpliterator(split, 0, -1, true), false).onClose(split::close);
+	}
+
+	/**
+	 * What the spliterators of one scan share.
+	 */
+	private class Split {
+		// one above the highest id, and the count of entities, -1 until looked up
+		private long bound = -1;
+		private long total = -1;
+		private final Set<RangeSpliterator> open = ConcurrentHashMap.newKeySet();
+		private volatile boolean closed = false;
+
+		synchronized long bound() {
+			if (bound < 0) {
+				Value max = tx.run(maxId).single().get(0);
+				bound = max.isNull() ? 0 : max.asLong() + 1;
+				total = bound == 0 ? 0 : tx.run(count).single().get(0).asLong();
+			}
+			return bound;
+		}
+
+		/**
+		 * Returns the number of entities expected in a number of ids.
+		 */
+		synchronized long entities(long ids) {
+			long bound = bound();
+			return bound == 0 ? 0 : (long) ((double) ids * total / bound);
+		}
+
+		void close() {
+			closed = true;
+			for (RangeSpliterator spliterator : open) {
+				spliterator.close();
+			}
+		}
+
+	}
+
+	private class RangeSpliterator implements Spliterator<T> {
+		private final Split split;
+		private long from;
+		private long to;
+		// whether this still covers all ids and reads through the transaction
+		private boolean whole;
+		private boolean done = false;
+		private ResourceIterator<T> iterator = null;
+		private RemoteTransaction scan = null;
+
+		RangeSpliterator(Split split, long from, long to, boolean whole) {
+			this.split = split;
+			this.from = from;
+			this.to = to;
+			this.whole = whole;
+		}
+
+		private long to() {
+			if (to < 0) {
+				to = split.bound();
+			}
+			return to;
+		}
+
+		@Override
+		public Spliterator<T> trySplit() {
+			if (done || iterator != null || split.entities(to() - from) < 2 * MIN_RANGE) {
+				return null;
+			}
+			long middle = from + (to - from) / 2;
+			RangeSpliterator prefix = new RangeSpliterator(split, from, middle, false);
+			from = middle;
+			whole = false;
+			return prefix;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if (done || !open()) {
+				return false;
+			}
+			if (!iterator.hasNext()) {
+				close();
+				return false;
+			}
+			action.accept(iterator.next());
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super T> action) {
+			if (done || !open()) {
+				return;
+			}
+			try {
+				while (iterator.hasNext()) {
+					action.accept(iterator.next());
+				}
+			} finally {
+				close();
+			}
+		}
+
+		/**
+		 * Starts reading the range, unless the stream is closed.
+		 */
+		private boolean open() {
+			if (iterator != null) {
+				return true;
+			}
+			if (split.closed) {
+				done = true;
+				return false;
+			}
+			split.open.add(this);
+			if (whole) {
+				iterator = all.get();
+			} else {
+				scan = tx.beginScan();
+				iterator = range.read(scan, from, to());
+			}
+			return true;
+		}
+
+		synchronized void close() {
+			done = true;
+			split.open.remove(this);
+			if (iterator != null) {
+				iterator.close();
+				iterator = null;
+			}
+			if (scan != null) {
+				tx.endScan(scan);
+				scan = null;
+			}
+		}
+
+		@Override
+		public long estimateSize() {
+			return done ? 0 : split.entities(Math.max(to() - from, 0));
+		}
+
+		@Override
+		public int characteristics() {
+			return NONNULL | DISTINCT;
+		}
+
+	}
+
+}
@@ -0,0 +1,66 @@
+package com.masterqiao.dasiy;
+
+import java.util.NoSuchElementException;
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.neo4j.graphdb.ResourceIterator;
+
+/**
+ * Iterates a driver result as it streams. The driver pulls
+ * <code>fetchSize</code> records per Bolt round trip and hands them out one
+ * by one, so the first record is returned as soon as it arrives. How many
+ * records the driver holds is not exposed by its API, so only the records
+ * consumed are counted.
+ */
+public abstract class RecordResourceIterator<T> implements ResourceIterator<T> {
+	private Result result;
+	private long consumed = 0;
+
+	protected RecordResourceIterator(Result result) {
+		this.result = result;
+	}
+
+	protected abstract T decode(Record record);
+
+	@Override
+	public boolean hasNext() {
+		if (result == null) {
+			return false;
+		}
+		if (!result.hasNext()) {
+			result = null;
+			return false;
+		}
+		return true;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		consumed++;
+		return decode(result.next());
+	}
+
+	/**
+	 * Returns the number of records returned by {@link #next()} so far.
+	 */
+	public long getConsumedCount() {
+		return consumed;
+	}
+
+	/**
+	 * Discards the records not read yet, so an early stop does not pull the
+	 * rest of the result over the wire.
+	 */
+	@Override
+	public void close() {
+		if (result != null) {
+			result.consume();
+			result = null;
+		}
+	}
+
+}
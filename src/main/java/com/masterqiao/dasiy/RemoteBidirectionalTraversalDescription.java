@@ -0,0 +1,135 @@
+package com.masterqiao.dasiy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.traversal.BidirectionalTraversalDescription;
+import org.neo4j.graphdb.traversal.BranchCollisionPolicy;
+import org.neo4j.graphdb.traversal.Evaluator;
+import org.neo4j.graphdb.traversal.PathEvaluator;
+import org.neo4j.graphdb.traversal.SideSelectorPolicy;
+import org.neo4j.graphdb.traversal.TraversalDescription;
+import org.neo4j.graphdb.traversal.Traverser;
+
+/**
+ * A bidirectional traversal description of the Remote wrapper. Both sides are
+ * {@link RemoteTraversalDescription}s expanded level by level; the side with
+ * the smaller frontier is expanded next, and the paths of one side colliding
+ * with those of the other are joined on the client.
+ */
+public class RemoteBidirectionalTraversalDescription implements BidirectionalTraversalDescription {
+	private final RemoteTransaction tx;
+
+	private RemoteTraversalDescription startSide;
+	private RemoteTraversalDescription endSide;
+	private List<Evaluator> collisionEvaluators = Collections.emptyList();
+	private int maxDepth = Integer.MAX_VALUE;
+
+	RemoteBidirectionalTraversalDescription(RemoteTransaction tx) {
+		this.tx = tx;
+		this.startSide = new RemoteTraversalDescription(tx);
+		this.endSide = startSide;
+	}
+
+	private RemoteBidirectionalTraversalDescription copy() {
+		RemoteBidirectionalTraversalDescription description = new RemoteBidirectionalTraversalDescription(tx);
+		description.startSide = startSide;
+		description.endSide = endSide;
+		description.collisionEvaluators = collisionEvaluators;
+		description.maxDepth = maxDepth;
+		return description;
+	}
+
+	private static RemoteTraversalDescription remote(TraversalDescription side) {
+		if (!(side instanceof RemoteTraversalDescription)) {
+			throw new IllegalArgumentException("Unsupported traversal description: " + side);
+		}
+		return (RemoteTraversalDescription) side;
+	}
+
+	@Override
+	public BidirectionalTraversalDescription startSide(TraversalDescription startSideDescription) {
+		RemoteBidirectionalTraversalDescription description = copy();
+		description.startSide = remote(startSideDescription);
+		return description;
+	}
+
+	@Override
+	public BidirectionalTraversalDescription endSide(TraversalDescription endSideDescription) {
+		RemoteBidirectionalTraversalDescription description = copy();
+		description.endSide = remote(endSideDescription);
+		return description;
+	}
+
+	@Override
+	public BidirectionalTraversalDescription mirroredSides(TraversalDescription sideDescription) {
+		RemoteBidirectionalTraversalDescription description = copy();
+		description.startSide = remote(sideDescription);
+		description.endSide = remote(sideDescription.reverse());
+		return description;
+	}
+
+	/**
+	 * Every collision is returned, so the policy is ignored.
+	 */
+	@Override
+	public BidirectionalTraversalDescription collisionPolicy(BranchCollisionPolicy collisionPolicy) {
+		return copy();
+	}
+
+	@Override
+	public BidirectionalTraversalDescription collisionEvaluator(Evaluator collisionEvaluator) {
+		RemoteBidirectionalTraversalDescription description = copy();
+		List<Evaluator> list = new ArrayList<>(collisionEvaluators);
+		list.add(Objects.requireNonNull(collisionEvaluator));
+		description.collisionEvaluators = Collections.unmodifiableList(list);
+		return description;
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public BidirectionalTraversalDescription collisionEvaluator(PathEvaluator collisionEvaluator) {
+		return collisionEvaluator((Evaluator) collisionEvaluator);
+	}
+
+	/**
+	 * The side with the smaller frontier is always expanded next, so only the
+	 * maximum depth, the sum of the depths of both sides, is used.
+	 */
+	@Override
+	public BidirectionalTraversalDescription sideSelector(SideSelectorPolicy sideSelector, int maxDepth) {
+		RemoteBidirectionalTraversalDescription description = copy();
+		description.maxDepth = maxDepth;
+		return description;
+	}
+
+	@Override
+	public Traverser traverse(Node start, Node end) {
+		return traverse(Collections.singletonList(start), Collections.singletonList(end));
+	}
+
+	@Override
+	public Traverser traverse(Iterable<Node> start, Iterable<Node> end) {
+		return new RemoteBidirectionalTraverser(this, start, end);
+	}
+
+	RemoteTraversalDescription startSide() {
+		return startSide;
+	}
+
+	RemoteTraversalDescription endSide() {
+		return endSide;
+	}
+
+	List<Evaluator> collisionEvaluators() {
+		return collisionEvaluators;
+	}
+
+	int maxDepth() {
+		return maxDepth;
+	}
+
+}
@@ -0,0 +1,213 @@
+package com.masterqiao.dasiy;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.ResourceIterable;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.traversal.Evaluator;
+import org.neo4j.graphdb.traversal.TraversalMetadata;
+import org.neo4j.graphdb.traversal.Traverser;
+
+import com.masterqiao.dasiy.RemoteTraverser.MappingIterator;
+
+/**
+ * The traverser of a {@link RemoteBidirectionalTraversalDescription}. Each
+ * call of {@link #iterator()} runs the traversal again, expanding the smaller
+ * frontier whenever the collisions found so far are consumed.
+ */
+public class RemoteBidirectionalTraverser implements Traverser {
+	private final RemoteBidirectionalTraversalDescription description;
+	private final Iterable<Node> startNodes;
+	private final Iterable<Node> endNodes;
+
+	private int pathsReturned = 0;
+	private int relationshipsTraversed = 0;
+	private int expansionQueries = 0;
+
+	RemoteBidirectionalTraverser(RemoteBidirectionalTraversalDescription description, Iterable<Node> startNodes,
+			Iterable<Node> endNodes) {
+		this.description = description;
+		this.startNodes = startNodes;
+		this.endNodes = endNodes;
+	}
+
+	@Override
+	public ResourceIterator<Path> iterator() {
+		pathsReturned = 0;
+		relationshipsTraversed = 0;
+		expansionQueries = 0;
+		return new CollisionIterator();
+	}
+
+	@Override
+	public ResourceIterable<Node> nodes() {
+		return () -> new MappingIterator<>(iterator(), Path::endNode);
+	}
+
+	@Override
+	public ResourceIterable<Relationship> relationships() {
+		return () -> new MappingIterator<>(iterator(), Path::lastRelationship);
+	}
+
+	/**
+	 * Returns the counts of the last iteration, both sides included.
+	 */
+	@Override
+	public TraversalMetadata metadata() {
+		return new TraversalMetadata() {
+
+			@Override
+			public int getNumberOfPathsReturned() {
+				return pathsReturned;
+			}
+
+			@Override
+			public int getNumberOfRelationshipsTraversed() {
+				return relationshipsTraversed;
+			}
+
+		};
+	}
+
+	/**
+	 * Returns the number of expansion queries of the last iteration, both
+	 * sides included.
+	 */
+	public int getNumberOfExpansionQueries() {
+		return expansionQueries;
+	}
+
+	/**
+	 * The paths included by the evaluators of one side, by end node id.
+	 */
+	private static class Side {
+		final TraversalFrontier frontier;
+		final LongHashSet visited = new LongHashSet();
+		final Map<Long, List<RemotePath>> paths = new HashMap<>();
+
+		Side(TraversalFrontier frontier) {
+			this.frontier = frontier;
+		}
+
+		void add(RemotePath path) {
+			long id = path.endNode().getId();
+			visited.add(id);
+			paths.computeIfAbsent(id, k -> new ArrayList<>(1)).add(path);
+		}
+
+	}
+
+	private class CollisionIterator implements ResourceIterator<Path> {
+		private final ArrayDeque<Path> ready = new ArrayDeque<>();
+		// a path collides again at each of its nodes the other side reaches later
+		private final Set<Path> found = new HashSet<>();
+		private final Side startSide = new Side(new TraversalFrontier(description.startSide(), startNodes));
+		private final Side endSide = new Side(new TraversalFrontier(description.endSide(), endNodes));
+		private boolean started = false;
+
+		@Override
+		public boolean hasNext() {
+			while (ready.isEmpty() && step()) {
+				relationshipsTraversed = startSide.frontier.getNumberOfRelationshipsTraversed()
+						+ endSide.frontier.getNumberOfRelationshipsTraversed();
+				expansionQueries = startSide.frontier.getNumberOfExpansionQueries()
+						+ endSide.frontier.getNumberOfExpansionQueries();
+			}
+			return !ready.isEmpty();
+		}
+
+		@Override
+		public Path next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			pathsReturned++;
+			return ready.poll();
+		}
+
+		@Override
+		public void close() {
+			ready.clear();
+			startSide.frontier.close();
+			endSide.frontier.close();
+		}
+
+		/**
+		 * Expands one side, returning false once neither can be.
+		 */
+		private boolean step() {
+			if (!started) {
+				started = true;
+				collide(startSide, startSide.frontier.next());
+				collide(endSide, endSide.frontier.next());
+				return true;
+			}
+			if (startSide.frontier.depth() + endSide.frontier.depth() >= description.maxDepth()) {
+				return false;
+			}
+			Side side;
+			if (startSide.frontier.isExhausted()) {
+				side = endSide;
+			} else if (endSide.frontier.isExhausted()) {
+				side = startSide;
+			} else {
+				side = endSide.frontier.size() < startSide.frontier.size() ? endSide : startSide;
+			}
+			if (side.frontier.isExhausted()) {
+				return false;
+			}
+			collide(side, side.frontier.next());
+			return true;
+		}
+
+		private void collide(Side side, List<RemotePath> paths) {
+			Side other = side == startSide ? endSide : startSide;
+			for (RemotePath path : paths) {
+				side.add(path);
+				long id = path.endNode().getId();
+				if (!other.visited.contains(id)) {
+					continue;
+				}
+				for (RemotePath otherPath : other.paths.get(id)) {
+					RemotePath joined = side == startSide ? join(path, otherPath) : join(otherPath, path);
+					if (includes(joined) && found.add(joined)) {
+						ready.add(joined);
+					}
+				}
+			}
+		}
+
+		private boolean includes(Path path) {
+			for (Evaluator evaluator : description.collisionEvaluators()) {
+				if (!evaluator.evaluate(path).includes()) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+	}
+
+	/**
+	 * Appends a path of the end side, walked back from the collision node, to
+	 * a path of the start side ending there.
+	 */
+	private static RemotePath join(RemotePath startPath, RemotePath endPath) {
+		RemotePath path = startPath;
+		for (RemotePath p = endPath; p.parent() != null; p = p.parent()) {
+			path = new RemotePath(path, p.lastRelationship(), p.parent().endNode());
+		}
+		return path;
+	}
+
+}
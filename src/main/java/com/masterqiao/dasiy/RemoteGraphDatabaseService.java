@@ -1,10 +1,27 @@
 package com.masterqiao.dasiy;
 
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
 
+import org.neo4j.driver.AccessMode;
 import org.neo4j.driver.Driver;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.SessionConfig;
+import org.neo4j.driver.TransactionConfig;
+import org.neo4j.driver.TransactionWork;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.async.AsyncSession;
+import org.neo4j.driver.exceptions.Neo4jException;
+import org.neo4j.driver.summary.SummaryCounters;
 import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.QueryExecutionException;
 import org.neo4j.graphdb.ResultTransformer;
@@ -12,12 +29,161 @@ import org.neo4j.graphdb.Transaction;
 
 public class RemoteGraphDatabaseService implements GraphDatabaseService {
 
+	/**
+	 * The fetch size of the driver when a session does not configure one.
+	 */
+	public static final long DEFAULT_FETCH_SIZE = 1000;
+
 	private Driver driver;
 
+	private long fetchSize = DEFAULT_FETCH_SIZE;
+
+	private boolean propertyCacheEnabled = false;
+	private boolean writeBehindEnabled = false;
+	private int writeBehindBatchSize = RemoteTransaction.DEFAULT_WRITE_BEHIND_BATCH_SIZE;
+	private Hydration hydration = Hydration.NONE;
+	private final TokenRegistry tokens = new TokenRegistry();
+	private MetricsRegistry metrics = MetricsRegistry.NONE;
+	private boolean parallelScansEnabled = false;
+	private int repeatedStatementThreshold = 0;
+	private Consumer<RepeatedStatement> repeatedStatementListener = null;
+
 	public RemoteGraphDatabaseService(Driver driver) {
 		this.driver = driver;
 	}
 
+	public long getFetchSize() {
+		return fetchSize;
+	}
+
+	/**
+	 * Sets the number of records pulled per Bolt round trip by the sessions of
+	 * this service. Smaller values bound client memory on huge scans, larger
+	 * ones save round trips; -1 pulls whole results at once.
+	 */
+	public void setFetchSize(long fetchSize) {
+		checkFetchSize(fetchSize);
+		this.fetchSize = fetchSize;
+	}
+
+	private static void checkFetchSize(long fetchSize) {
+		if (fetchSize == 0 || fetchSize < -1) {
+			throw new IllegalArgumentException("Fetch size must be positive or -1: " + fetchSize);
+		}
+	}
+
+	public boolean isPropertyCacheEnabled() {
+		return propertyCacheEnabled;
+	}
+
+	/**
+	 * Sets whether transactions begun by this service cache property maps,
+	 * see {@link RemoteTransaction#setPropertyCacheEnabled(boolean)}.
+	 */
+	public void setPropertyCacheEnabled(boolean propertyCacheEnabled) {
+		this.propertyCacheEnabled = propertyCacheEnabled;
+	}
+
+	public boolean isWriteBehindEnabled() {
+		return writeBehindEnabled;
+	}
+
+	/**
+	 * Sets whether transactions begun by this service queue their mutations,
+	 * see {@link RemoteTransaction#setWriteBehindEnabled(boolean)}.
+	 */
+	public void setWriteBehindEnabled(boolean writeBehindEnabled) {
+		this.writeBehindEnabled = writeBehindEnabled;
+	}
+
+	public int getWriteBehindBatchSize() {
+		return writeBehindBatchSize;
+	}
+
+	public void setWriteBehindBatchSize(int writeBehindBatchSize) {
+		this.writeBehindBatchSize = writeBehindBatchSize;
+	}
+
+	public Hydration getHydration() {
+		return hydration;
+	}
+
+	/**
+	 * Sets the hydration of transactions begun by this service, see
+	 * {@link RemoteTransaction#setHydration(Hydration)}.
+	 */
+	public void setHydration(Hydration hydration) {
+		this.hydration = Objects.requireNonNull(hydration);
+	}
+
+	public Duration getTokenRefreshInterval() {
+		return tokens.getRefreshInterval();
+	}
+
+	/**
+	 * Sets how long the labels, relationship types and property keys loaded
+	 * from the server are used before being loaded again, one minute by
+	 * default. Tokens created by the transactions of this service are known
+	 * right away.
+	 */
+	public void setTokenRefreshInterval(Duration refreshInterval) {
+		tokens.setRefreshInterval(Objects.requireNonNull(refreshInterval));
+	}
+
+	public boolean isParallelScansEnabled() {
+		return parallelScansEnabled;
+	}
+
+	/**
+	 * When enabled, a parallel stream of
+	 * {@link RemoteTransaction#getAllNodes()} or
+	 * {@link RemoteTransaction#getAllRelationships()} splits the id space into
+	 * ranges, each read in a transaction on a session of its own. Those only
+	 * see committed data, and the entities they return are only usable within
+	 * the stream. Iterating and sequential streams are not affected.
+	 */
+	public void setParallelScansEnabled(boolean parallelScansEnabled) {
+		this.parallelScansEnabled = parallelScansEnabled;
+	}
+
+	public int getRepeatedStatementThreshold() {
+		return repeatedStatementThreshold;
+	}
+
+	/**
+	 * Sets the repeated statement threshold of transactions begun by this
+	 * service, see
+	 * {@link RemoteTransaction#setRepeatedStatementThreshold(int)}.
+	 */
+	public void setRepeatedStatementThreshold(int repeatedStatementThreshold) {
+		if (repeatedStatementThreshold < 0 || repeatedStatementThreshold == 1) {
+			throw new IllegalArgumentException(
+					"Repeated statement threshold must be 0 or at least 2: " + repeatedStatementThreshold);
+		}
+		this.repeatedStatementThreshold = repeatedStatementThreshold;
+	}
+
+	/**
+	 * Sets where the transactions begun by this service report repeated
+	 * statements, or <code>null</code> for a warning in the log.
+	 */
+	public void setRepeatedStatementListener(Consumer<RepeatedStatement> repeatedStatementListener) {
+		this.repeatedStatementListener = repeatedStatementListener;
+	}
+
+	public MetricsRegistry getMetricsRegistry() {
+		return metrics;
+	}
+
+	/**
+	 * Sets the registry the statements of the transactions begun by this
+	 * service are reported to, such as a {@link RemoteMetrics}. The default
+	 * {@link MetricsRegistry#NONE} leaves the metrics off.
+	 */
+	public void setMetricsRegistry(MetricsRegistry metrics) {
+		this.metrics = Objects.requireNonNull(metrics);
+	}
+
 	@Override
 	public boolean isAvailable(long timeout) {
 		// TODO Auto-generated method stub
@@ -26,7 +192,52 @@ public class RemoteGraphDatabaseService implements GraphDatabaseService {
 
 	@Override
 	public Transaction beginTx() {
-		return new RemoteTransaction(driver.session());
+		return beginTx(fetchSize);
+	}
+
+	/**
+	 * Begins a transaction whose session pulls <code>fetchSize</code> records
+	 * per round trip, instead of the fetch size of this service. The driver
+	 * binds the fetch size to the session, so this is the finest granularity
+	 * at which it can be overridden.
+	 */
+	public RemoteTransaction beginTx(long fetchSize) {
+		checkFetchSize(fetchSize);
+		SessionConfig config = SessionConfig.builder().withFetchSize(fetchSize).build();
+		RemoteTransaction tx = new RemoteTransaction(driver.session(config), fetchSize, tokens);
+		tx.setPropertyCacheEnabled(propertyCacheEnabled);
+		tx.setWriteBehindEnabled(writeBehindEnabled);
+		tx.setWriteBehindBatchSize(writeBehindBatchSize);
+		tx.setHydration(hydration);
+		tx.setMetricsRegistry(metrics);
+		if (parallelScansEnabled) {
+			tx.setScanSessions(() -> driver.session(config));
+		}
+		if (repeatedStatementListener != null) {
+			tx.setRepeatedStatementListener(repeatedStatementListener);
+		}
+		tx.setRepeatedStatementThreshold(repeatedStatementThreshold);
+		return tx;
+	}
+
+	/**
+	 * Begins a transaction on an async session, for pipelining independent
+	 * operations without a blocked thread per statement.
+	 */
+	public CompletionStage<AsyncRemoteTransaction> beginTxAsync() {
+		SessionConfig config = SessionConfig.builder().withFetchSize(fetchSize).build();
+		AsyncSession session = driver.asyncSession(config);
+		return session.beginTransactionAsync().handle((tx, error) -> {
+			if (error != null) {
+				session.closeAsync();
+				throw completionException(error);
+			}
+			return new AsyncRemoteTransaction(session, tx, tokens);
+		});
+	}
+
+	static CompletionException completionException(Throwable error) {
+		return error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
 	}
 
 	@Override
@@ -36,27 +247,206 @@ public class RemoteGraphDatabaseService implements GraphDatabaseService {
 
 	@Override
 	public void executeTransactionally(String query) throws QueryExecutionException {
-		throw new RuntimeException("Not implemented yet");
+		executeTransactionally(query, Collections.emptyMap());
 	}
 
 	@Override
 	public void executeTransactionally(String query, Map<String, Object> parameters) throws QueryExecutionException {
-		// TODO Auto-generated method stub
-		throw new RuntimeException("Not implemented yet");
+		executeTransactionally(query, parameters, result -> null);
 	}
 
 	@Override
 	public <T> T executeTransactionally(String query, Map<String, Object> parameters,
 			ResultTransformer<T> resultTransformer) throws QueryExecutionException {
-		// TODO Auto-generated method stub
-		throw new RuntimeException("Not implemented yet");
+		return execute(query, parameters, resultTransformer, TransactionConfig.empty(), AccessMode.WRITE);
 	}
 
+	/**
+	 * Runs the query in a write transaction managed by the driver, which
+	 * retries the whole unit of work, including the result transformer, on
+	 * transient errors until the maximum retry time of the driver config
+	 * expires. The transformer therefore must not have side effects other than
+	 * its return value.
+	 * 
+	 * @param timeout the transaction timeout, enforced by the server
+	 */
 	@Override
 	public <T> T executeTransactionally(String query, Map<String, Object> parameters,
 			ResultTransformer<T> resultTransformer, Duration timeout) throws QueryExecutionException {
-		// TODO Auto-generated method stub
-		throw new RuntimeException("Not implemented yet");
+		TransactionConfig config = TransactionConfig.builder().withTimeout(timeout).build();
+		return execute(query, parameters, resultTransformer, config, AccessMode.WRITE);
+	}
+
+	/**
+	 * Like {@link #executeTransactionally(String, Map, ResultTransformer)} for
+	 * read-only queries, which a cluster can route to its followers.
+	 */
+	public <T> T executeReadTransactionally(String query, Map<String, Object> parameters,
+			ResultTransformer<T> resultTransformer) throws QueryExecutionException {
+		return execute(query, parameters, resultTransformer, TransactionConfig.empty(), AccessMode.READ);
+	}
+
+	public <T> T executeReadTransactionally(String query, Map<String, Object> parameters,
+			ResultTransformer<T> resultTransformer, Duration timeout) throws QueryExecutionException {
+		TransactionConfig config = TransactionConfig.builder().withTimeout(timeout).build();
+		return execute(query, parameters, resultTransformer, config, AccessMode.READ);
+	}
+
+	private <T> T execute(String query, Map<String, Object> parameters, ResultTransformer<T> resultTransformer,
+			TransactionConfig config, AccessMode mode) {
+		MetricsRegistry metrics = this.metrics;
+		TransactionWork<T> work = tx -> {
+			long start = System.nanoTime();
+			org.neo4j.driver.Result ret = tx.run(query, parameters);
+			if (metrics != MetricsRegistry.NONE) {
+				ret = new MeteredResult(ret, "GraphDatabaseService.executeTransactionally", query, metrics, fetchSize,
+						start, result -> {
+						});
+			}
+			try (RemoteResult result = new RemoteResult(new RemoteTransaction(tx, fetchSize, tokens), ret)) {
+				return resultTransformer.apply(result);
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+		};
+		SessionConfig sessionConfig = SessionConfig.builder().withFetchSize(fetchSize).build();
+		try (Session session = driver.session(sessionConfig)) {
+			return mode == AccessMode.READ ? session.readTransaction(work, config)
+					: session.writeTransaction(work, config);
+		} catch (Neo4jException e) {
+			throw new QueryExecutionException(e.getMessage(), e, e.code());
+		}
+	}
+
+	public DeleteProgress delete(BulkDelete delete) {
+		return delete(delete, progress -> {
+		});
+	}
+
+	/**
+	 * Deletes in batches, each in a write transaction of its own which the
+	 * driver retries on transient errors, and reports the progress after each.
+	 * Given ids are deleted {@link BulkDelete#batchSize(int)} at a time,
+	 * everything else a batch of entities at a time until a batch comes up
+	 * short, all relationships before all nodes. A failing batch stops the
+	 * deletion, the batches committed before stay deleted, so running it again
+	 * resumes.
+	 */
+	public DeleteProgress delete(BulkDelete delete, Consumer<DeleteProgress> listener) {
+		Objects.requireNonNull(delete);
+		Objects.requireNonNull(listener);
+		int batchSize = delete.getBatchSize();
+		try (Session session = session()) {
+			Deletion deletion = new Deletion(session, listener);
+			if (delete.ids() != null) {
+				long[] ids = delete.ids();
+				deletion.total = ids.length;
+				Statement statement = Statements.deleteNodesById(delete.isDetach());
+				for (int from = 0; from < ids.length; from += batchSize) {
+					long[] batch = Arrays.copyOfRange(ids, from, Math.min(from + batchSize, ids.length));
+					deletion.run(statement, Values.parameters("ids", batch), counters -> batch.length);
+				}
+				return deletion.progress();
+			}
+			Statement nodes = Statements.deleteNodes(delete.label(), delete.isDetach());
+			if (delete.label() != null) {
+				deletion.total = deletion.count(Statements.labelCounts(delete.label().name()));
+				deletion.runBatches(nodes, batchSize, SummaryCounters::nodesDeleted);
+				return deletion.progress();
+			}
+			deletion.total = deletion.count(Statements.RELATIONSHIP_COUNT) + deletion.count(Statements.NODE_COUNT);
+			deletion.runBatches(Statements.DELETE_RELATIONSHIPS, batchSize, SummaryCounters::relationshipsDeleted);
+			deletion.runBatches(nodes, batchSize, SummaryCounters::nodesDeleted);
+			return deletion.progress();
+		} catch (Neo4jException e) {
+			throw new QueryExecutionException(e.getMessage(), e, e.code());
+		}
+	}
+
+	/**
+	 * Returns a bulk importer writing through sessions of this service, with
+	 * its key map sized for <code>expectedNodes</code>. Close it to free the
+	 * map.
+	 */
+	public BulkImporter bulkImporter(long expectedNodes) {
+		return new BulkImporter(this, expectedNodes);
+	}
+
+	/**
+	 * Opens a session of its own for bulk work, with the fetch size of this
+	 * service.
+	 */
+	Session session() {
+		return driver.session(SessionConfig.builder().withFetchSize(fetchSize).build());
+	}
+
+	/**
+	 * Wraps a transaction of the driver for the work of
+	 * {@link Session#writeTransaction(TransactionWork)} or
+	 * {@link Session#readTransaction(TransactionWork)}.
+	 */
+	RemoteTransaction transaction(org.neo4j.driver.Transaction tx) {
+		RemoteTransaction transaction = new RemoteTransaction(tx, fetchSize, tokens);
+		transaction.setMetricsRegistry(metrics);
+		return transaction;
+	}
+
+	private class Deletion {
+		final Session session;
+		final Consumer<DeleteProgress> listener;
+		long nodesDeleted = 0;
+		long relationshipsDeleted = 0;
+		long transactions = 0;
+		long done = 0;
+		long total = 0;
+
+		Deletion(Session session, Consumer<DeleteProgress> listener) {
+			this.session = session;
+			this.listener = listener;
+		}
+
+		/**
+		 * Returns the <code>count</code> column of the single row of the
+		 * statement.
+		 */
+		long count(Statement statement) {
+			return session.readTransaction(tx -> transaction(tx).run(statement).single().get("count").asLong());
+		}
+
+		/**
+		 * Runs a batch and returns the entities it deleted that count as
+		 * done.
+		 */
+		long run(Statement statement, Value parameters, ToLongFunction<SummaryCounters> deleted) {
+			SummaryCounters counters = session
+					.writeTransaction(tx -> transaction(tx).run(statement, parameters).consume().counters());
+			nodesDeleted += counters.nodesDeleted();
+			relationshipsDeleted += counters.relationshipsDeleted();
+			transactions++;
+			long count = deleted.applyAsLong(counters);
+			done += count;
+			listener.accept(progress());
+			return count;
+		}
+
+		/**
+		 * Runs the statement of <code>$batch</code> entities until a batch
+		 * deletes fewer.
+		 */
+		void runBatches(Statement statement, int batchSize, ToLongFunction<SummaryCounters> deleted) {
+			Value batch = Values.parameters("batch", batchSize);
+			long count;
+			do {
+				count = run(statement, batch, deleted);
+			} while (count == batchSize);
+		}
+
+		DeleteProgress progress() {
+			return new DeleteProgress(nodesDeleted, relationshipsDeleted, transactions, done, total);
+		}
+
 	}
 
 	@Override
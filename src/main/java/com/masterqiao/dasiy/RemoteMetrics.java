@@ -0,0 +1,158 @@
+package com.masterqiao.dasiy;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * A {@link MetricsRegistry} keeping call counts, round trips, rows and a
+ * latency histogram per statement template in memory. Recording updates
+ * striped counters and one histogram bucket, after a walk of the wrapper
+ * frames above the statement to name the API method called. As queries run
+ * through <code>execute</code> can be any text, at most
+ * {@link #DEFAULT_MAX_TEMPLATES} templates are kept apart, later ones are
+ * counted under {@link #OTHER} for their method.
+ * The metrics can be read with {@link #getStatements()} and
+ * {@link #getMethods()}, or through JMX once {@link #registerMBean(String)}
+ * is called.
+ */
+public class RemoteMetrics implements MetricsRegistry, RemoteMetricsMXBean {
+
+	/**
+	 * The template the statements beyond the maximum number of templates are
+	 * counted under.
+	 */
+	public static final String OTHER = "other";
+
+	static final int DEFAULT_MAX_TEMPLATES = 1000;
+
+	private final int maxTemplates;
+	private final ConcurrentMap<String, Stats> statements = new ConcurrentHashMap<>();
+	// the statements beyond the maximum number of templates, by method
+	private final ConcurrentMap<String, Stats> others = new ConcurrentHashMap<>();
+	private ObjectName objectName = null;
+
+	public RemoteMetrics() {
+		this(DEFAULT_MAX_TEMPLATES);
+	}
+
+	/**
+	 * @param maxTemplates the number of templates kept apart
+	 */
+	public RemoteMetrics(int maxTemplates) {
+		if (maxTemplates < 0) {
+			throw new IllegalArgumentException("Max templates must not be negative: " + maxTemplates);
+		}
+		this.maxTemplates = maxTemplates;
+	}
+
+	@Override
+	public void record(String method, String template, long latencyNanos, long rows, long roundTrips) {
+		Stats stats = statements.get(template);
+		if (stats == null) {
+			// the size may overshoot by the threads racing past it, which is harmless
+			if (statements.size() < maxTemplates) {
+				stats = statements.computeIfAbsent(template, k -> new Stats(method));
+			} else {
+				stats = others.computeIfAbsent(method, Stats::new);
+			}
+		}
+		stats.calls.increment();
+		stats.rows.add(rows);
+		stats.roundTrips.add(roundTrips);
+		stats.latencies.record(latencyNanos);
+	}
+
+	@Override
+	public List<StatementMetrics> getStatements() {
+		List<StatementMetrics> list = new ArrayList<>();
+		statements.forEach((template, stats) -> list.add(new StatementMetrics(stats.method, template,
+				stats.calls.sum(), stats.roundTrips.sum(), stats.rows.sum(), stats.latencies)));
+		others.forEach((method, stats) -> list.add(new StatementMetrics(method, OTHER, stats.calls.sum(),
+				stats.roundTrips.sum(), stats.rows.sum(), stats.latencies)));
+		list.sort(Comparator.comparing(StatementMetrics::getMethod).thenComparing(StatementMetrics::getTemplate));
+		return list;
+	}
+
+	@Override
+	public List<StatementMetrics> getMethods() {
+		Map<String, Stats> methods = new LinkedHashMap<>();
+		statements.values().forEach(stats -> methods.computeIfAbsent(stats.method, Stats::new).add(stats));
+		others.values().forEach(stats -> methods.computeIfAbsent(stats.method, Stats::new).add(stats));
+		List<StatementMetrics> list = new ArrayList<>();
+		methods.forEach((method, stats) -> list.add(new StatementMetrics(method, "", stats.calls.sum(),
+				stats.roundTrips.sum(), stats.rows.sum(), stats.latencies)));
+		list.sort(Comparator.comparing(StatementMetrics::getMethod));
+		return list;
+	}
+
+	@Override
+	public void reset() {
+		statements.clear();
+		others.clear();
+	}
+
+	/**
+	 * Registers these metrics with the platform MBean server, as
+	 * <code>com.masterqiao.dasiy:type=RemoteMetrics,name=</code><i>name</i>.
+	 */
+	public synchronized ObjectName registerMBean(String name) {
+		unregisterMBean();
+		try {
+			ObjectName objectName = new ObjectName("com.masterqiao.dasiy:type=RemoteMetrics,name="
+					+ ObjectName.quote(name));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+			this.objectName = objectName;
+			return objectName;
+		} catch (JMException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	public synchronized void unregisterMBean() {
+		if (objectName == null) {
+			return;
+		}
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			if (server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+		} catch (JMException e) {
+			throw new RuntimeException(e);
+		} finally {
+			objectName = null;
+		}
+	}
+
+	private static class Stats {
+		final String method;
+		final LongAdder calls = new LongAdder();
+		final LongAdder roundTrips = new LongAdder();
+		final LongAdder rows = new LongAdder();
+		final LatencyHistogram latencies = new LatencyHistogram();
+
+		Stats(String method) {
+			this.method = method;
+		}
+
+		void add(Stats other) {
+			calls.add(other.calls.sum());
+			roundTrips.add(other.roundTrips.sum());
+			rows.add(other.rows.sum());
+			latencies.add(other.latencies);
+		}
+
+	}
+
+}
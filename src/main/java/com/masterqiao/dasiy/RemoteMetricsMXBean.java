@@ -0,0 +1,22 @@
+package com.masterqiao.dasiy;
+
+import java.util.List;
+
+/**
+ * The JMX view of {@link RemoteMetrics}.
+ */
+public interface RemoteMetricsMXBean {
+
+	/**
+	 * Returns the metrics of each statement template.
+	 */
+	List<StatementMetrics> getStatements();
+
+	/**
+	 * Returns the metrics of each API method, over all its templates.
+	 */
+	List<StatementMetrics> getMethods();
+
+	void reset();
+
+}
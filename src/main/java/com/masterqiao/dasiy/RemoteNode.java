@@ -1,15 +1,14 @@
 package com.masterqiao.dasiy;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.neo4j.driver.Result;
-import org.neo4j.driver.Transaction;
 import org.neo4j.driver.Value;
 import org.neo4j.driver.Values;
 import org.neo4j.graphdb.Direction;
@@ -18,45 +17,107 @@ import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.NotFoundException;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.RelationshipType;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.neo4j.graphdb.ResourceIterable;
+import org.neo4j.graphdb.ResourceIterator;
 
 public class RemoteNode implements Node {
-	private Logger logger = LoggerFactory.getLogger(RemoteNode.class);
-
 	private long id;
-	private Transaction tx;
+	private RemoteTransaction tx;
 
-	public RemoteNode(Transaction tx, long id) {
+	public RemoteNode(RemoteTransaction tx, long id) {
 		this.tx = tx;
 		this.id = id;
 	}
 
+	/**
+	 * Returns the cached property map of this node, loading it with a single
+	 * query on first access if the property cache is enabled, or null if it
+	 * is not completely cached.
+	 */
+	private Map<String, Object> cachedProperties() {
+		Map<String, Object> properties = tx.nodeProperties().get(id);
+		if (properties == null && tx.isPropertyCacheEnabled()) {
+			Result ret = tx.run(Statements.NODE_PROPERTIES, Values.parameters("id", id));
+			tx.nodeProperties().put(id, ret.single().get(0).asMap());
+			properties = tx.nodeProperties().get(id);
+		}
+		return properties;
+	}
+
+	/**
+	 * Returns the value of a property without flushing the write-behind queue:
+	 * the value queued or cached, else the one on the server, which no queued
+	 * write changes.
+	 */
+	private Object unflushedProperty(String key) {
+		Map<String, Object> queued = tx.writeBehind().nodeProperties(id);
+		if (queued != null && queued.containsKey(key)) {
+			return Values.value(queued.get(key)).asObject();
+		}
+		if (tx.nodeProperties().knows(id, key)) {
+			return tx.nodeProperties().value(id, key);
+		}
+		Result ret = tx.send(Statements.NODE_PROPERTY, Values.parameters("id", id, "key", key));
+		return ret.single().get(0).asObject();
+	}
+
+	/**
+	 * Returns whether a property can be answered from the cache, which holds
+	 * hydrated properties, or all of them if the property cache is enabled.
+	 */
+	private boolean cached(String key) {
+		return tx.nodeProperties().knows(id, key) || cachedProperties() != null;
+	}
+
+	private Set<String> cachedLabels() {
+		Set<String> labels = tx.nodeLabels().get(id);
+		if (labels == null && tx.isPropertyCacheEnabled()) {
+			Result ret = tx.run(Statements.NODE_LABELS, Values.parameters("id", id));
+			tx.nodeLabels().put(id, ret.single().get(0).asList(Value::asString));
+			labels = tx.nodeLabels().get(id);
+		}
+		return labels;
+	}
+
 	@Override
 	public void addLabel(Label label) {
-		String query = "match (n) where id(n)=$id set n:" + label.name();
-		tx.run(query, Values.parameters("id", id));
+		if (tx.isWriteBehindEnabled()) {
+			tx.writeBehind().addLabel(id, label.name());
+		} else {
+			tx.run(Statements.addLabel(label.name()), Values.parameters("id", id));
+		}
+		tx.nodeLabels().add(id, label.name());
+		tx.tokens().label(label.name());
 	}
 
 	@Override
 	public Relationship createRelationshipTo(Node otherNode, RelationshipType type) {
-		String query = "match (n), (m) where id(n)=$id and id(m)=$ido create (n)-[r:" + type.name()
-				+ "]->(m) return id(r)";
-		Result ret = tx.run(query, Values.parameters("id", id, "ido", otherNode.getId()));
-		long idRel = ret.single().get("id(r)").asLong();
-		return new RemoteRelationship(tx, idRel, this, otherNode);
+		Value value = Values.parameters("id", id, "other", otherNode.getId());
+		Result ret = tx.run(Statements.createRelationship(type), value);
+		long idRel = ret.single().get(0).asLong();
+		tx.relationshipCreated(id, otherNode.getId(), type);
+		return tx.relationship(idRel, id, otherNode.getId(), type);
 	}
 
 	@Override
 	public void delete() {
-		String query = "match (n) where id(n)=$id delete n";
-		tx.run(query, Values.parameters("id", id));
+		if (tx.isWriteBehindEnabled()) {
+			tx.writeBehind().deleteNode(id);
+		} else {
+			tx.run(Statements.NODE_DELETE, Values.parameters("id", id));
+		}
+		tx.nodeProperties().evict(id);
+		tx.nodeLabels().evict(id);
+		tx.evictAdjacency(id);
 	}
 
 	@Override
 	public Map<String, Object> getAllProperties() {
-		String query = "match (n) where id(n)=$id return n";
-		Result ret = tx.run(query, Values.parameters("id", id));
+		Map<String, Object> properties = cachedProperties();
+		if (properties != null) {
+			return new HashMap<>(properties);
+		}
+		Result ret = tx.run(Statements.NODE_PROPERTIES, Values.parameters("id", id));
 		return ret.single().get(0).asMap();
 	}
 
@@ -65,25 +126,14 @@ public class RemoteNode implements Node {
 		return getDegree(Direction.BOTH);
 	}
 
+	/**
+	 * The degree, existence and type listing calls are answered from the
+	 * adjacency summary of this node, loaded with one query on first use and
+	 * kept until a local write changes the relationships of this node.
+	 */
 	@Override
 	public int getDegree(Direction direction) {
-		String query = null;
-		switch (direction) {
-		case BOTH:
-			query = "match (n)-[r]-() where id(n)=$id return count(r)";
-			break;
-		case INCOMING:
-			query = "match (n)<-[r]-() where id(n)=$id return count(r)";
-			break;
-		case OUTGOING:
-			query = "match (n)-[r]->() where id(n)=$id return count(r)";
-			break;
-		default:
-			throw new RuntimeException();
-		}
-
-		Result ret = tx.run(query, Values.parameters("id", id));
-		return ret.single().get("count(r)").asInt();
+		return tx.adjacency(id).degree(direction);
 	}
 
 	@Override
@@ -93,23 +143,7 @@ public class RemoteNode implements Node {
 
 	@Override
 	public int getDegree(RelationshipType type, Direction direction) {
-		String query = null;
-		switch (direction) {
-		case BOTH:
-			query = "match (n)-[r]-() where id(n)=$id and type(r)=$type return count(r)";
-			break;
-		case INCOMING:
-			query = "match (n)<-[r]-() where id(n)=$id and type(r)=$type return count(r)";
-			break;
-		case OUTGOING:
-			query = "match (n)-[r]->() where id(n)=$id and type(r)=$type return count(r)";
-			break;
-		default:
-			throw new RuntimeException();
-		}
-
-		Result ret = tx.run(query, Values.parameters("id", id, "type", type.name()));
-		return ret.single().get("count(r)").asInt();
+		return tx.adjacency(id).degree(direction, type);
 	}
 
 	@Override
@@ -119,11 +153,14 @@ public class RemoteNode implements Node {
 
 	@Override
 	public Iterable<Label> getLabels() {
-		String query = "match (n) where id(n)=$id return labels(n)";
-		Value value = Values.parameters("id", id);
-		logger.debug("getLabels() " + query + " " + value);
-		Result ret = tx.run(query, value);
-		List<Label> val = ret.single().get(0).asList(t -> Label.label(t.asString()));
+		Set<String> labels = cachedLabels();
+		if (labels != null) {
+			List<Label> val = new ArrayList<>(labels.size());
+			labels.forEach(name -> val.add(tx.tokens().label(name)));
+			return val;
+		}
+		Result ret = tx.run(Statements.NODE_LABELS, Values.parameters("id", id));
+		List<Label> val = ret.single().get(0).asList(t -> tx.tokens().label(t.asString()));
 		return val;
 	}
 
@@ -134,18 +171,18 @@ public class RemoteNode implements Node {
 			return map;
 		}
 
-		StringBuilder strBuilder = new StringBuilder();
-		for (String key : keys) {
-			strBuilder.append(" n.");
-			strBuilder.append(key);
-			strBuilder.append(" as ");
-			strBuilder.append(key);
-			strBuilder.append(',');
+		if (Arrays.stream(keys).allMatch(this::cached)) {
+			for (String key : keys) {
+				map.put(key, tx.nodeProperties().value(id, key));
+			}
+			return map;
+		}
+
+		Result ret = tx.run(Statements.NODE_PROPERTY_VALUES, Values.parameters("id", id, "keys", keys));
+		Value values = ret.single().get(0);
+		for (int i = 0; i < keys.length; i++) {
+			map.put(keys[i], values.get(i).asObject());
 		}
-		strBuilder.setLength(strBuilder.length() - 1);
-		String query = "match (n) where id(n)=$id return " + strBuilder.toString();
-		Result ret = tx.run(query, Values.parameters("id", id));
-		map.putAll(ret.single().asMap());
 		return map;
 	}
 
@@ -157,8 +194,14 @@ public class RemoteNode implements Node {
 	 */
 	@Override
 	public Object getProperty(String key) {
-		String query = "match (n) where id(n)=$id return n." + key;
-		Result ret = tx.run(query, Values.parameters("id", id));
+		if (cached(key)) {
+			Object val = tx.nodeProperties().value(id, key);
+			if (val == null) {
+				throw new NotFoundException("Property not found: " + key);
+			}
+			return val;
+		}
+		Result ret = tx.run(Statements.NODE_PROPERTY, Values.parameters("id", id, "key", key));
 		Object val = ret.single().get(0).asObject();
 		if (val == null) {
 			throw new NotFoundException("Property not found: " + key);
@@ -168,140 +211,98 @@ public class RemoteNode implements Node {
 
 	@Override
 	public Object getProperty(String key, Object defaultValue) {
-		String query = "match (n) where id(n)=$id return n." + key;
-		Result ret = tx.run(query, Values.parameters("id", id));
+		if (cached(key)) {
+			Object val = tx.nodeProperties().value(id, key);
+			return val != null ? val : defaultValue;
+		}
+		Result ret = tx.run(Statements.NODE_PROPERTY, Values.parameters("id", id, "key", key));
 		Object val = ret.single().get(0).asObject();
 		return val != null ? val : defaultValue;
 	}
 
 	@Override
 	public Iterable<String> getPropertyKeys() {
-		String query = "match (n) where id(n)=$id return keys(n)";
-		Result ret = tx.run(query, Values.parameters("id", id));
-		return ret.single().get("keys(n)").asList(Value::asString);
-	}
-
-	@Override
-	public Iterable<Relationship> getRelationships() {
-		String query = "match (n)-[r]-(m) where id(n)=$id return id(n), id(r), id(m)";
-		Result ret = tx.run(query, Values.parameters("id", id));
-		final List<Relationship> list = new ArrayList<>();
-		ret.forEachRemaining(record -> {
-			long startNodeId = record.get("id(n)").asLong();
-			long endNodeId = record.get("id(m)").asLong();
-			Node startNode = startNodeId == id ? this : new RemoteNode(tx, startNodeId);
-			Node endNode = endNodeId == id ? this : new RemoteNode(tx, endNodeId);
-			list.add(new RemoteRelationship(tx, record.get("id(r)").asLong(), startNode, endNode));
-		});
-		return list;
-	}
-
-	@Override
-	public Iterable<Relationship> getRelationships(Direction dir) {
-		String query = null;
-		switch (dir) {
-		case BOTH:
-			query = "match (n)-[r]-(m) where id(n)=$id return id(n), id(r), id(m)";
-		case INCOMING:
-			query = "match (n)<-[r]-(m) where id(n)=$id return id(n), id(r), id(m)";
-			break;
-		case OUTGOING:
-			query = "match (n)-[r]->(m) where id(n)=$id return id(n), id(r), id(m)";
-			break;
-		default:
-			throw new RuntimeException();
+		Map<String, Object> properties = cachedProperties();
+		if (properties != null) {
+			return new ArrayList<>(properties.keySet());
 		}
+		Result ret = tx.run(Statements.NODE_PROPERTY_KEYS, Values.parameters("id", id));
+		return ret.single().get(0).asList(Value::asString);
+	}
 
-		Result ret = tx.run(query, Values.parameters("id", id));
-		final List<Relationship> list = new ArrayList<>();
-		ret.forEachRemaining(record -> {
-			long startNodeId = record.get("id(n)").asLong();
-			long endNodeId = record.get("id(m)").asLong();
-			Node startNode = startNodeId == id ? this : new RemoteNode(tx, startNodeId);
-			Node endNode = endNodeId == id ? this : new RemoteNode(tx, endNodeId);
-			list.add(new RemoteRelationship(tx, record.get("id(r)").asLong(), startNode, endNode));
-		});
-
-		return list;
-	}
-
-	@Override
-	public Iterable<Relationship> getRelationships(Direction direction, RelationshipType... types) {
-		String query = null;
-		switch (direction) {
-		case BOTH:
-			query = "match (n)-[r]-(m) where id(n)=$id and type(r) in $types return id(n), id(r), id(m)";
-			break;
-		case INCOMING:
-			query = "match (n)<-[r]-(m) where id(n)=$id and type(r) in $types return id(n), id(r), id(m)";
-			break;
-		case OUTGOING:
-			query = "match (n)-[r]->(m) where id(n)=$id and type(r) in $types return id(n), id(r), id(m)";
-			break;
-		default:
-			throw new RuntimeException();
-		}
-		List<String> typeNames = new ArrayList<>();
-		for (RelationshipType type : types) {
-			typeNames.add(type.name());
-		}
-		Result ret = tx.run(query, Values.parameters("id", id, "types", typeNames));
-		final List<Relationship> list = new ArrayList<>();
-		ret.forEachRemaining(record -> {
-			long startNodeId = record.get("id(n)").asLong();
-			long endNodeId = record.get("id(m)").asLong();
-			Node startNode = startNodeId == id ? this : new RemoteNode(tx, startNodeId);
-			Node endNode = endNodeId == id ? this : new RemoteNode(tx, endNodeId);
-			list.add(new RemoteRelationship(tx, record.get("id(r)").asLong(), startNode, endNode));
-		});
+	@Override
+	public ResourceIterable<Relationship> getRelationships() {
+		return getRelationships(Direction.BOTH);
+	}
+
+	/**
+	 * Relationships are streamed from the server while iterating, each call of
+	 * <code>iterator()</code> runs the query again. Closing the iterator early
+	 * discards the records not read yet.
+	 */
+	@Override
+	public ResourceIterable<Relationship> getRelationships(Direction dir) {
+		return getRelationships(dir, new RelationshipType[0]);
+	}
 
-		return list;
+	@Override
+	public ResourceIterable<Relationship> getRelationships(Direction direction, RelationshipType... types) {
+		return getRelationships(tx.getHydration(), direction, types);
+	}
+
+	/**
+	 * Like {@link #getRelationships(Direction, RelationshipType...)}, with the
+	 * given hydration instead of the one of the transaction.
+	 */
+	public ResourceIterable<Relationship> getRelationships(Hydration hydration, Direction direction,
+			RelationshipType... types) {
+		final Statement statement = Statements.relationships(hydration, direction, types);
+		final Value value = Values.parameters("id", id);
+		return () -> tx.new RelationshipResourceIterator(statement, hydration, tx.run(statement, value));
 	}
 
 	@Override
-	public Iterable<Relationship> getRelationships(RelationshipType... types) {
+	public ResourceIterable<Relationship> getRelationships(RelationshipType... types) {
 		return getRelationships(Direction.BOTH, types);
 	}
 
 	@Override
 	public Iterable<RelationshipType> getRelationshipTypes() {
-		String query = "match (n)-[r]-(m) where id(n)=$id return distinct type(r)";
-		Result ret = tx.run(query, Values.parameters("id", id));
-		final Set<RelationshipType> set = new HashSet<>();
-		ret.forEachRemaining(record -> {
-			String type = record.get("type(r)").asString();
-			set.add(RelationshipType.withName(type));
-		});
-		return set;
+		return tx.adjacency(id).relationshipTypes(tx.tokens());
 	}
 
 	@Override
 	public Relationship getSingleRelationship(RelationshipType type, Direction dir) {
-		Iterator<Relationship> it = getRelationships(dir, type).iterator();
-		if (it.hasNext()) {
-			Relationship rel = it.next();
+		try (ResourceIterator<Relationship> it = getRelationships(dir, type).iterator()) {
 			if (it.hasNext()) {
-				throw new RuntimeException("More than one relationship found");
+				Relationship rel = it.next();
+				if (it.hasNext()) {
+					throw new RuntimeException("More than one relationship found");
+				}
+				return rel;
+			} else {
+				return null;
 			}
-			return rel;
-		} else {
-			return null;
 		}
 	}
 
 	@Override
 	public boolean hasLabel(Label label) {
-		String query = "match (n) where id(n)=$id return $label in labels(n)";
-		Result ret = tx.run(query, Values.parameters("id", id, "label", label.name()));
+		Set<String> labels = cachedLabels();
+		if (labels != null) {
+			return labels.contains(label.name());
+		}
+		Result ret = tx.run(Statements.NODE_HAS_LABEL, Values.parameters("id", id, "label", label.name()));
 		return ret.single().get(0).isTrue();
 	}
 
 	@Override
 	public boolean hasProperty(String key) {
-		String query = "match (n) where id(n)=$id return exists(n." + key + ")";
-		Result ret = tx.run(query, Values.parameters("id", id));
+		if (cached(key)) {
+			return tx.nodeProperties().value(id, key) != null;
+		}
+		Result ret = tx.run(Statements.NODE_HAS_PROPERTY, Values.parameters("id", id, "key", key));
 		return ret.single().get(0).isTrue();
-
 	}
 
 	@Override
@@ -311,50 +312,12 @@ public class RemoteNode implements Node {
 
 	@Override
 	public boolean hasRelationship(Direction dir) {
-		String query = null;
-		switch (dir) {
-		case BOTH:
-			query = "match (n)-[r]-() where id(n)=$id return count(r)>0";
-			break;
-		case INCOMING:
-			query = "match (n)<-[r]-() where id(n)=$id return count(r)>0";
-			break;
-		case OUTGOING:
-			query = "match (n)-[r]->() where id(n)=$id return count(r)>0";
-			break;
-		default:
-			throw new RuntimeException();
-		}
-		Value value = Values.parameters("id", id);
-		logger.debug("hasRelationship() " + query + " " + value.toString());
-		Result ret = tx.run(query, value);
-		return ret.single().get(0).isTrue();
+		return hasRelationship(dir, new RelationshipType[0]);
 	}
 
 	@Override
 	public boolean hasRelationship(Direction direction, RelationshipType... types) {
-		String query = null;
-		switch (direction) {
-		case BOTH:
-			query = "match (n)-[r]-() where id(n)=$id and type(r) in $types return count(r)>0";
-			break;
-		case INCOMING:
-			query = "match (n)<-[r]-() where id(n)=$id and type(r) in $types return count(r)>0";
-			break;
-		case OUTGOING:
-			query = "match (n)-[r]->() where id(n)=$id and type(r) in $types return count(r)>0";
-			break;
-		default:
-			throw new RuntimeException();
-		}
-		List<String> typeNames = new ArrayList<>();
-		for (RelationshipType type : types) {
-			typeNames.add(type.name());
-		}
-		Value value = Values.parameters("id", id, "types", typeNames);
-		logger.debug("hasRelationship() " + query + " " + value.toString());
-		Result ret = tx.run(query, value);
-		return ret.single().get(0).isTrue();
+		return tx.adjacency(id).hasRelationship(direction, types);
 	}
 
 	@Override
@@ -364,24 +327,49 @@ public class RemoteNode implements Node {
 
 	@Override
 	public void removeLabel(Label label) {
-		String query = "match (n) where id(n)=$id remove n:" + label.name();
-		tx.run(query, Values.parameters("id", id));
+		if (tx.isWriteBehindEnabled()) {
+			tx.writeBehind().removeLabel(id, label.name());
+		} else {
+			tx.run(Statements.removeLabel(label.name()), Values.parameters("id", id));
+		}
+		tx.nodeLabels().remove(id, label.name());
 	}
 
 	@Override
 	public Object removeProperty(String key) {
-		Object oldObj = getProperty(key, null);
+		Object oldObj = tx.isWriteBehindEnabled() ? unflushedProperty(key) : getProperty(key, null);
 		if (oldObj != null) {
-			String query = "match (n) where id(n)=$id remove n." + key;
-			tx.run(query, Values.parameters("id", id));
+			if (tx.isWriteBehindEnabled()) {
+				tx.writeBehind().setNodeProperty(id, key, null);
+			} else {
+				tx.run(Statements.NODE_SET_PROPERTIES,
+						Values.parameters("id", id, "props", Collections.singletonMap(key, null)));
+			}
+			tx.nodeProperties().remove(id, key);
 		}
 		return oldObj;
 	}
 
 	@Override
 	public void setProperty(String key, Object value) {
-		String query = "match (n) where id(n)=$id set n." + key + "=$value";
-		tx.run(query, Values.parameters("id", id, "value", value));
+		if (tx.isWriteBehindEnabled()) {
+			tx.writeBehind().setNodeProperty(id, key, value);
+		} else {
+			tx.run(Statements.NODE_SET_PROPERTIES,
+					Values.parameters("id", id, "props", Collections.singletonMap(key, value)));
+		}
+		tx.nodeProperties().set(id, key, value);
+		tx.tokens().propertyKey(key);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof Node && ((Node) obj).getId() == id;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(id);
 	}
 
 	@Override
@@ -0,0 +1,161 @@
+package com.masterqiao.dasiy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.neo4j.graphdb.Entity;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.Relationship;
+
+/**
+ * A path assembled by a traversal, as its last relationship and end node
+ * linked to the path it extends, so paths sharing a prefix share its
+ * handles.
+ */
+public class RemotePath implements Path {
+	private final RemotePath parent;
+	private final Relationship lastRelationship;
+	private final Node endNode;
+	private final int length;
+
+	/**
+	 * Creates a path of length 0.
+	 */
+	RemotePath(Node startNode) {
+		this(null, null, startNode);
+	}
+
+	RemotePath(RemotePath parent, Relationship lastRelationship, Node endNode) {
+		this.parent = parent;
+		this.lastRelationship = lastRelationship;
+		this.endNode = endNode;
+		this.length = parent != null ? parent.length + 1 : 0;
+	}
+
+	/**
+	 * Returns the path this path extends by one relationship, or null if this
+	 * path has length 0.
+	 */
+	RemotePath parent() {
+		return parent;
+	}
+
+	@Override
+	public Node startNode() {
+		RemotePath path = this;
+		while (path.parent != null) {
+			path = path.parent;
+		}
+		return path.endNode;
+	}
+
+	@Override
+	public Node endNode() {
+		return endNode;
+	}
+
+	@Override
+	public Relationship lastRelationship() {
+		return lastRelationship;
+	}
+
+	@Override
+	public Iterable<Relationship> relationships() {
+		List<Relationship> relationships = reverseRelationships();
+		Collections.reverse(relationships);
+		return relationships;
+	}
+
+	@Override
+	public List<Relationship> reverseRelationships() {
+		List<Relationship> relationships = new ArrayList<>(length);
+		for (RemotePath path = this; path.parent != null; path = path.parent) {
+			relationships.add(path.lastRelationship);
+		}
+		return relationships;
+	}
+
+	@Override
+	public Iterable<Node> nodes() {
+		List<Node> nodes = reverseNodes();
+		Collections.reverse(nodes);
+		return nodes;
+	}
+
+	@Override
+	public List<Node> reverseNodes() {
+		List<Node> nodes = new ArrayList<>(length + 1);
+		for (RemotePath path = this; path != null; path = path.parent) {
+			nodes.add(path.endNode);
+		}
+		return nodes;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Iterates the nodes and relationships of this path, alternately, from the
+	 * start node to the end node.
+	 */
+	@Override
+	public Iterator<Entity> iterator() {
+		List<Entity> entities = new ArrayList<>(2 * length + 1);
+		for (RemotePath path = this; path != null; path = path.parent) {
+			entities.add(path.endNode);
+			if (path.lastRelationship != null) {
+				entities.add(path.lastRelationship);
+			}
+		}
+		Collections.reverse(entities);
+		return entities.iterator();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof Path)) {
+			return false;
+		}
+		Path other = (Path) obj;
+		if (other.length() != length) {
+			return false;
+		}
+		Iterator<Entity> it = iterator();
+		Iterator<Entity> otherIt = other.iterator();
+		while (it.hasNext()) {
+			if (!it.next().equals(otherIt.next())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		return lastRelationship != null ? lastRelationship.hashCode() : endNode.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder strBuilder = new StringBuilder();
+		Node node = null;
+		for (Entity entity : this) {
+			if (entity instanceof Node) {
+				node = (Node) entity;
+				strBuilder.append('(').append(node.getId()).append(')');
+			} else {
+				Relationship relationship = (Relationship) entity;
+				boolean outgoing = relationship.getStartNode().getId() == node.getId();
+				strBuilder.append(outgoing ? "-[" : "<-[").append(relationship.getType().name()).append(',')
+						.append(relationship.getId()).append(outgoing ? "]->" : "]-");
+			}
+		}
+		return strBuilder.toString();
+	}
+
+}
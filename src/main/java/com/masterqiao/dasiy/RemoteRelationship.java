@@ -1,33 +1,73 @@
 package com.masterqiao.dasiy;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.neo4j.driver.Result;
-import org.neo4j.driver.Transaction;
 import org.neo4j.driver.Value;
 import org.neo4j.driver.Values;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.NotFoundException;
 import org.neo4j.graphdb.Relationship;
 import org.neo4j.graphdb.RelationshipType;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 public class RemoteRelationship implements Relationship {
-	private Logger logger = LoggerFactory.getLogger(RemoteRelationship.class);
-
 	private long id;
-	private Transaction tx;
+	private RemoteTransaction tx;
 
-	private Node startNode;
-	private Node endNode;
+	// node handles are only made when asked for, most scans never need them
+	private long startId;
+	private long endId;
+	private RelationshipType type;
 
-	public RemoteRelationship(Transaction tx, long id, Node startNode, Node endNode) {
+	public RemoteRelationship(RemoteTransaction tx, long id, long startId, long endId, RelationshipType type) {
 		this.tx = tx;
 		this.id = id;
-		this.startNode = startNode;
-		this.endNode = endNode;
+		this.startId = startId;
+		this.endId = endId;
+		this.type = type;
+	}
+
+	/**
+	 * Returns the cached property map of this relationship, loading it with a
+	 * single query on first access if the property cache is enabled, or null
+	 * if it is not completely cached.
+	 */
+	private Map<String, Object> cachedProperties() {
+		Map<String, Object> properties = tx.relationshipProperties().get(id);
+		if (properties == null && tx.isPropertyCacheEnabled()) {
+			Result ret = tx.run(Statements.RELATIONSHIP_PROPERTIES, Values.parameters("id", id));
+			tx.relationshipProperties().put(id, ret.single().get(0).asMap());
+			properties = tx.relationshipProperties().get(id);
+		}
+		return properties;
+	}
+
+	/**
+	 * Returns the value of a property without flushing the write-behind queue,
+	 * like {@link RemoteNode}.
+	 */
+	private Object unflushedProperty(String key) {
+		Map<String, Object> queued = tx.writeBehind().relationshipProperties(id);
+		if (queued != null && queued.containsKey(key)) {
+			return Values.value(queued.get(key)).asObject();
+		}
+		if (tx.relationshipProperties().knows(id, key)) {
+			return tx.relationshipProperties().value(id, key);
+		}
+		Result ret = tx.send(Statements.RELATIONSHIP_PROPERTY, Values.parameters("id", id, "key", key));
+		return ret.single().get(0).asObject();
+	}
+
+	/**
+	 * Returns whether a property can be answered from the cache, which holds
+	 * hydrated properties, or all of them if the property cache is enabled.
+	 */
+	private boolean cached(String key) {
+		return tx.relationshipProperties().knows(id, key) || cachedProperties() != null;
 	}
 
 	@Override
@@ -37,10 +77,10 @@ public class RemoteRelationship implements Relationship {
 
 	@Override
 	public boolean hasProperty(String key) {
-		String query = "match ()-[r]->() where id(r)=$id return exists(r." + key + ")";
-		Value value = Values.parameters("id", id);
-		logger.debug("hasProperty() " + query + " " + value.toString());
-		Result ret = tx.run(query, value);
+		if (cached(key)) {
+			return tx.relationshipProperties().value(id, key) != null;
+		}
+		Result ret = tx.run(Statements.RELATIONSHIP_HAS_PROPERTY, Values.parameters("id", id, "key", key));
 		return ret.single().get(0).isTrue();
 	}
 
@@ -52,10 +92,14 @@ public class RemoteRelationship implements Relationship {
 	 */
 	@Override
 	public Object getProperty(String key) {
-		String query = "match ()-[r]->() where id(r)=$id return r." + key;
-		Value value = Values.parameters("id", id);
-		logger.debug("getProperty() " + query + " " + value.toString());
-		Result ret = tx.run(query, value);
+		if (cached(key)) {
+			Object val = tx.relationshipProperties().value(id, key);
+			if (val == null) {
+				throw new NotFoundException("Property(" + key + ") not found.");
+			}
+			return val;
+		}
+		Result ret = tx.run(Statements.RELATIONSHIP_PROPERTY, Values.parameters("id", id, "key", key));
 		Object val = ret.single().get(0).asObject();
 		if (val == null) {
 			throw new NotFoundException("Property(" + key + ") not found.");
@@ -65,35 +109,50 @@ public class RemoteRelationship implements Relationship {
 
 	@Override
 	public Object getProperty(String key, Object defaultValue) {
-		String query = "match ()-[r]->() where id(r)=$id return r." + key;
-		Value value = Values.parameters("id", id);
-		logger.debug("getProperty() " + query + " " + value.toString());
-		Result ret = tx.run(query, value);
+		if (cached(key)) {
+			Object val = tx.relationshipProperties().value(id, key);
+			return val != null ? val : defaultValue;
+		}
+		Result ret = tx.run(Statements.RELATIONSHIP_PROPERTY, Values.parameters("id", id, "key", key));
 		Object val = ret.single().get(0).asObject();
 		return val != null ? val : defaultValue;
 	}
 
 	@Override
 	public void setProperty(String key, Object value) {
-		String query = "match ()-[r]->() where id(r)=$id set r." + key + "=$value";
-		tx.run(query, Values.parameters("id", id, "value", value));
+		if (tx.isWriteBehindEnabled()) {
+			tx.writeBehind().setRelationshipProperty(id, key, value);
+		} else {
+			tx.run(Statements.RELATIONSHIP_SET_PROPERTIES,
+					Values.parameters("id", id, "props", Collections.singletonMap(key, value)));
+		}
+		tx.relationshipProperties().set(id, key, value);
+		tx.tokens().propertyKey(key);
 	}
 
 	@Override
 	public Object removeProperty(String key) {
-		Object oldObj = getProperty(key, null);
+		Object oldObj = tx.isWriteBehindEnabled() ? unflushedProperty(key) : getProperty(key, null);
 		if (oldObj != null) {
-			String query = "match ()-[r]->() where id(r)=$id remove r." + key;
-			tx.run(query, Values.parameters("id", id));
+			if (tx.isWriteBehindEnabled()) {
+				tx.writeBehind().setRelationshipProperty(id, key, null);
+			} else {
+				tx.run(Statements.RELATIONSHIP_SET_PROPERTIES,
+						Values.parameters("id", id, "props", Collections.singletonMap(key, null)));
+			}
+			tx.relationshipProperties().remove(id, key);
 		}
 		return oldObj;
 	}
 
 	@Override
 	public Iterable<String> getPropertyKeys() {
-		String query = "match ()-[r]->() where id(r)=$id return keys(r)";
-		Result ret = tx.run(query, Values.parameters("id", id));
-		return ret.single().get("keys(r)").asList(Value::asString);
+		Map<String, Object> properties = cachedProperties();
+		if (properties != null) {
+			return new ArrayList<>(properties.keySet());
+		}
+		Result ret = tx.run(Statements.RELATIONSHIP_PROPERTY_KEYS, Values.parameters("id", id));
+		return ret.single().get(0).asList(Value::asString);
 	}
 
 	@Override
@@ -103,70 +162,114 @@ public class RemoteRelationship implements Relationship {
 			return map;
 		}
 
-		StringBuilder strBuilder = new StringBuilder();
-		for (String key : keys) {
-			strBuilder.append(" r.");
-			strBuilder.append(key);
-			strBuilder.append(" as ");
-			strBuilder.append(key);
-			strBuilder.append(',');
+		if (Arrays.stream(keys).allMatch(this::cached)) {
+			for (String key : keys) {
+				map.put(key, tx.relationshipProperties().value(id, key));
+			}
+			return map;
+		}
+
+		Result ret = tx.run(Statements.RELATIONSHIP_PROPERTY_VALUES, Values.parameters("id", id, "keys", keys));
+		Value values = ret.single().get(0);
+		for (int i = 0; i < keys.length; i++) {
+			map.put(keys[i], values.get(i).asObject());
 		}
-		strBuilder.setLength(strBuilder.length() - 1);
-		String query = "match ()-[r]->() where id(r)=$id return " + strBuilder.toString();
-		Result ret = tx.run(query, Values.parameters("id", id));
-		map.putAll(ret.single().asMap());
 		return map;
 	}
 
 	@Override
 	public Map<String, Object> getAllProperties() {
-		String query = "match ()-[r]->() where id(r)=$id return r";
-		Result ret = tx.run(query, Values.parameters("id", id));
+		Map<String, Object> properties = cachedProperties();
+		if (properties != null) {
+			return new HashMap<>(properties);
+		}
+		Result ret = tx.run(Statements.RELATIONSHIP_PROPERTIES, Values.parameters("id", id));
 		return ret.single().get(0).asMap();
 	}
 
 	@Override
 	public void delete() {
-		String query = "match ()-[r]->() where id(r)=$id delete r";
-		tx.run(query, Values.parameters("id", id));
+		if (tx.isWriteBehindEnabled()) {
+			tx.writeBehind().deleteRelationship(id);
+		} else {
+			tx.run(Statements.RELATIONSHIP_DELETE, Values.parameters("id", id));
+		}
+		tx.relationshipProperties().evict(id);
+		tx.evictAdjacency(startId);
+		tx.evictAdjacency(endId);
 	}
 
 	@Override
 	public Node getStartNode() {
-		return startNode;
+		return tx.node(startId);
 	}
 
 	@Override
 	public Node getEndNode() {
-		return endNode;
+		return tx.node(endId);
 	}
 
 	@Override
 	public Node getOtherNode(Node node) {
-		return startNode.getId() == node.getId() ? endNode : startNode;
+		return tx.node(getOtherNodeId(node.getId()));
 	}
 
 	@Override
 	public Node[] getNodes() {
-		return new Node[] { startNode, endNode };
+		return new Node[] { getStartNode(), getEndNode() };
+	}
+
+	/**
+	 * Returns the id of the start node, without making its handle.
+	 */
+	public long getStartNodeId() {
+		return startId;
+	}
+
+	/**
+	 * Returns the id of the end node, without making its handle.
+	 */
+	public long getEndNodeId() {
+		return endId;
+	}
+
+	/**
+	 * Returns the id of the node at the other end from the given one, which
+	 * must be one of the ends.
+	 */
+	public long getOtherNodeId(long id) {
+		if (id == startId) {
+			return endId;
+		}
+		if (id == endId) {
+			return startId;
+		}
+		throw new NotFoundException("Node[" + id + "] not connected to this relationship[" + this.id + "]");
 	}
 
 	@Override
 	public RelationshipType getType() {
-		String query = "match ()-[r]->() where id(r)=$id return type(r)";
-		Result ret = tx.run(query, Values.parameters("id", id));
-		String str = ret.single().get("type(r)").asString();
-		return RelationshipType.withName(str);
+		return type;
 	}
 
 	@Override
 	public boolean isType(RelationshipType type) {
-		return getType().name().equals(type.name());
+		return this.type.name().equals(type.name());
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof Relationship && ((Relationship) obj).getId() == id;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(id);
 	}
 
 	@Override
 	public String toString() {
-		return "(" + startNode.getId() + ")-[" + getType() + "," + id + "]->(" + endNode.getId() + ")";
+		return "(" + startId + ")-[" + type.name() + "," + id + "]->(" + endId + ")";
 	}
 
 }
@@ -0,0 +1,471 @@
+package com.masterqiao.dasiy;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.summary.Plan;
+import org.neo4j.driver.summary.ProfiledPlan;
+import org.neo4j.driver.summary.ResultSummary;
+import org.neo4j.driver.summary.SummaryCounters;
+import org.neo4j.graphdb.ExecutionPlanDescription;
+import org.neo4j.graphdb.InputPosition;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Notification;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.QueryExecutionType;
+import org.neo4j.graphdb.QueryStatistics;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.SeverityLevel;
+
+/**
+ * A streaming {@link Result} view of a driver result. Records are pulled from
+ * the server while iterating, nodes, relationships and paths are returned as
+ * handles of the transaction the statement ran in, other values as the driver
+ * returns them.
+ * <p>
+ * The summary of a driver result is only available once all records are
+ * received, so {@link #getQueryStatistics()},
+ * {@link #getQueryExecutionType()}, {@link #getNotifications()} and
+ * {@link #getExecutionPlanDescription()} discard the records not read yet.
+ */
+public class RemoteResult implements Result {
+	private final RemoteTransaction tx;
+	private final org.neo4j.driver.Result result;
+	private final List<String> columns;
+	private ResultSummary summary;
+
+	RemoteResult(RemoteTransaction tx, org.neo4j.driver.Result result) {
+		this.tx = tx;
+		this.result = result;
+		this.columns = result.keys();
+	}
+
+	@Override
+	public QueryExecutionType getQueryExecutionType() {
+		switch (summary().queryType()) {
+		case READ_ONLY:
+			return QueryExecutionType.query(QueryExecutionType.QueryType.READ_ONLY);
+		case READ_WRITE:
+			return QueryExecutionType.query(QueryExecutionType.QueryType.READ_WRITE);
+		case WRITE_ONLY:
+			return QueryExecutionType.query(QueryExecutionType.QueryType.WRITE);
+		case SCHEMA_WRITE:
+			return QueryExecutionType.query(QueryExecutionType.QueryType.SCHEMA_WRITE);
+		default:
+			throw new RuntimeException();
+		}
+	}
+
+	@Override
+	public List<String> columns() {
+		return columns;
+	}
+
+	@Override
+	public <T> ResourceIterator<T> columnAs(String name) {
+		int column = columns.indexOf(name);
+		if (column < 0) {
+			throw new IllegalArgumentException("No column " + name + " in " + columns);
+		}
+		return new ResourceIterator<T>() {
+
+			@Override
+			public boolean hasNext() {
+				return result.hasNext();
+			}
+
+			@SuppressWarnings("unchecked")
+			@Override
+			public T next() {
+				return (T) convert(result.next().get(column).asObject());
+			}
+
+			@Override
+			public void close() {
+				RemoteResult.this.close();
+			}
+
+		};
+	}
+
+	@Override
+	public boolean hasNext() {
+		return summary == null && result.hasNext();
+	}
+
+	@Override
+	public Map<String, Object> next() {
+		Record record = result.next();
+		Map<String, Object> row = new LinkedHashMap<>();
+		for (int i = 0; i < columns.size(); i++) {
+			row.put(columns.get(i), convert(record.get(i).asObject()));
+		}
+		return row;
+	}
+
+	/**
+	 * Discards the records not read yet.
+	 */
+	@Override
+	public void close() {
+		summary();
+	}
+
+	private ResultSummary summary() {
+		if (summary == null) {
+			summary = result.consume();
+		}
+		return summary;
+	}
+
+	@Override
+	public QueryStatistics getQueryStatistics() {
+		return new Statistics(summary().counters());
+	}
+
+	/**
+	 * Returns the plan of a statement run with <code>EXPLAIN</code>, or with
+	 * its profiler statistics if run with <code>PROFILE</code>. The server only
+	 * sends a plan for these, so this returns <code>null</code> otherwise.
+	 */
+	@Override
+	public ExecutionPlanDescription getExecutionPlanDescription() {
+		ResultSummary summary = summary();
+		if (summary.hasProfile()) {
+			return new PlanDescription(summary.profile());
+		}
+		return summary.hasPlan() ? new PlanDescription(summary.plan()) : null;
+	}
+
+	@Override
+	public String resultAsString() {
+		StringWriter writer = new StringWriter();
+		try (PrintWriter printWriter = new PrintWriter(writer)) {
+			writeAsStringTo(printWriter);
+		}
+		return writer.toString();
+	}
+
+	/**
+	 * Writes the remaining rows, one line per row with the values separated
+	 * by <code>|</code>.
+	 */
+	@Override
+	public void writeAsStringTo(PrintWriter writer) {
+		writer.println(String.join(" | ", columns));
+		while (hasNext()) {
+			Map<String, Object> row = next();
+			List<String> values = new ArrayList<>(row.size());
+			row.values().forEach(value -> values.add(String.valueOf(value)));
+			writer.println(String.join(" | ", values));
+		}
+		writer.flush();
+	}
+
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public Iterable<Notification> getNotifications() {
+		List<Notification> notifications = new ArrayList<>();
+		summary().notifications().forEach(notification -> notifications.add(new RemoteNotification(notification)));
+		return notifications;
+	}
+
+	@Override
+	public <E extends Exception> void accept(ResultVisitor<E> visitor) throws E {
+		while (hasNext()) {
+			if (!visitor.visit(new Row(next()))) {
+				break;
+			}
+		}
+		close();
+	}
+
+	private Object convert(Object value) {
+		if (value instanceof org.neo4j.driver.types.Node) {
+			return tx.node(((org.neo4j.driver.types.Node) value).id());
+		}
+		if (value instanceof org.neo4j.driver.types.Relationship) {
+			org.neo4j.driver.types.Relationship relationship = (org.neo4j.driver.types.Relationship) value;
+			return tx.relationship(relationship.id(), relationship.startNodeId(), relationship.endNodeId(),
+					tx.tokens().relationshipType(relationship.type()));
+		}
+		if (value instanceof org.neo4j.driver.types.Path) {
+			org.neo4j.driver.types.Path path = (org.neo4j.driver.types.Path) value;
+			RemotePath converted = new RemotePath(tx.node(path.start().id()));
+			for (org.neo4j.driver.types.Path.Segment segment : path) {
+				converted = new RemotePath(converted, (Relationship) convert(segment.relationship()),
+						tx.node(segment.end().id()));
+			}
+			return converted;
+		}
+		if (value instanceof List) {
+			List<?> list = (List<?>) value;
+			List<Object> converted = new ArrayList<>(list.size());
+			list.forEach(element -> converted.add(convert(element)));
+			return converted;
+		}
+		if (value instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) value;
+			Map<Object, Object> converted = new LinkedHashMap<>();
+			map.forEach((key, element) -> converted.put(key, convert(element)));
+			return converted;
+		}
+		return value;
+	}
+
+	private static class Row implements ResultRow {
+		private final Map<String, Object> row;
+
+		Row(Map<String, Object> row) {
+			this.row = row;
+		}
+
+		@Override
+		public Node getNode(String key) {
+			return (Node) get(key);
+		}
+
+		@Override
+		public Relationship getRelationship(String key) {
+			return (Relationship) get(key);
+		}
+
+		@Override
+		public Object get(String key) {
+			if (!row.containsKey(key)) {
+				throw new IllegalArgumentException("No column " + key + " in " + row.keySet());
+			}
+			return row.get(key);
+		}
+
+		@Override
+		public String getString(String key) {
+			return (String) get(key);
+		}
+
+		@Override
+		public Number getNumber(String key) {
+			return (Number) get(key);
+		}
+
+		@Override
+		public Boolean getBoolean(String key) {
+			return (Boolean) get(key);
+		}
+
+		@Override
+		public Path getPath(String key) {
+			return (Path) get(key);
+		}
+
+	}
+
+	private static class RemoteNotification implements Notification {
+		private final org.neo4j.driver.summary.Notification notification;
+
+		RemoteNotification(org.neo4j.driver.summary.Notification notification) {
+			this.notification = notification;
+		}
+
+		@Override
+		public String getCode() {
+			return notification.code();
+		}
+
+		@Override
+		public String getTitle() {
+			return notification.title();
+		}
+
+		@Override
+		public String getDescription() {
+			return notification.description();
+		}
+
+		@Override
+		public SeverityLevel getSeverity() {
+			return "WARNING".equals(notification.severity()) ? SeverityLevel.WARNING : SeverityLevel.INFORMATION;
+		}
+
+		@Override
+		public InputPosition getPosition() {
+			org.neo4j.driver.summary.InputPosition position = notification.position();
+			return position != null ? new InputPosition(position.offset(), position.line(), position.column())
+					: InputPosition.empty;
+		}
+
+		@Override
+		public String toString() {
+			return notification.severity() + " " + getCode() + ": " + getTitle();
+		}
+
+	}
+
+	private static class PlanDescription implements ExecutionPlanDescription {
+		private final Plan plan;
+
+		PlanDescription(Plan plan) {
+			this.plan = plan;
+		}
+
+		@Override
+		public String getName() {
+			return plan.operatorType();
+		}
+
+		@Override
+		public List<ExecutionPlanDescription> getChildren() {
+			List<ExecutionPlanDescription> children = new ArrayList<>();
+			plan.children().forEach(child -> children.add(new PlanDescription(child)));
+			return children;
+		}
+
+		@Override
+		public Map<String, Object> getArguments() {
+			Map<String, Object> arguments = new LinkedHashMap<>();
+			plan.arguments().forEach((name, value) -> arguments.put(name, value.asObject()));
+			return arguments;
+		}
+
+		@Override
+		public Set<String> getIdentifiers() {
+			return new LinkedHashSet<>(plan.identifiers());
+		}
+
+		@Override
+		public boolean hasProfilerStatistics() {
+			return plan instanceof ProfiledPlan;
+		}
+
+		@Override
+		public ProfilerStatistics getProfilerStatistics() {
+			if (!hasProfilerStatistics()) {
+				throw new NoSuchElementException("No profiler statistics, the statement was not profiled");
+			}
+			ProfiledPlan profile = (ProfiledPlan) plan;
+			return new ProfilerStatistics() {
+
+				@Override
+				public long getRows() {
+					return profile.records();
+				}
+
+				@Override
+				public long getDbHits() {
+					return profile.dbHits();
+				}
+
+				@Override
+				public long getPageCacheHits() {
+					return profile.pageCacheHits();
+				}
+
+				@Override
+				public long getPageCacheMisses() {
+					return profile.pageCacheMisses();
+				}
+
+			};
+		}
+
+		@Override
+		public String toString() {
+			return getName() + getChildren();
+		}
+
+	}
+
+	private static class Statistics implements QueryStatistics {
+		private final SummaryCounters counters;
+
+		Statistics(SummaryCounters counters) {
+			this.counters = counters;
+		}
+
+		@Override
+		public int getNodesCreated() {
+			return counters.nodesCreated();
+		}
+
+		@Override
+		public int getNodesDeleted() {
+			return counters.nodesDeleted();
+		}
+
+		@Override
+		public int getRelationshipsCreated() {
+			return counters.relationshipsCreated();
+		}
+
+		@Override
+		public int getRelationshipsDeleted() {
+			return counters.relationshipsDeleted();
+		}
+
+		@Override
+		public int getPropertiesSet() {
+			return counters.propertiesSet();
+		}
+
+		@Override
+		public int getLabelsAdded() {
+			return counters.labelsAdded();
+		}
+
+		@Override
+		public int getLabelsRemoved() {
+			return counters.labelsRemoved();
+		}
+
+		@Override
+		public int getIndexesAdded() {
+			return counters.indexesAdded();
+		}
+
+		@Override
+		public int getIndexesRemoved() {
+			return counters.indexesRemoved();
+		}
+
+		@Override
+		public int getConstraintsAdded() {
+			return counters.constraintsAdded();
+		}
+
+		@Override
+		public int getConstraintsRemoved() {
+			return counters.constraintsRemoved();
+		}
+
+		@Override
+		public int getSystemUpdates() {
+			return counters.systemUpdates();
+		}
+
+		@Override
+		public boolean containsUpdates() {
+			return counters.containsUpdates();
+		}
+
+		@Override
+		public boolean containsSystemUpdates() {
+			return counters.containsSystemUpdates();
+		}
+
+	}
+
+}
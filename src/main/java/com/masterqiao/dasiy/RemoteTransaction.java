@@ -1,7 +1,19 @@
 package com.masterqiao.dasiy;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
 
 import org.neo4j.driver.Record;
 import org.neo4j.driver.Result;
@@ -9,6 +21,7 @@ import org.neo4j.driver.Session;
 import org.neo4j.driver.Transaction;
 import org.neo4j.driver.Value;
 import org.neo4j.driver.Values;
+import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.Entity;
 import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Lock;
@@ -28,105 +41,609 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class RemoteTransaction implements org.neo4j.graphdb.Transaction {
-	private Logger logger = LoggerFactory.getLogger(RemoteTransaction.class);
+	private static final Logger logger = LoggerFactory.getLogger(RemoteTransaction.class);
+
+	/**
+	 * Maximum number of rows sent as the parameter list of one UNWIND statement.
+	 */
+	static final int BATCH_SIZE = 10000;
+
+	/**
+	 * Maximum number of canonical handles kept per entity kind, and of
+	 * entities with cached properties, labels or adjacency summaries.
+	 */
+	static final int HANDLE_CACHE_SIZE = 1 << 14;
+
+	/**
+	 * Number of operations queued in write-behind mode before they are
+	 * flushed, unless set with {@link #setWriteBehindBatchSize(int)}.
+	 */
+	static final int DEFAULT_WRITE_BEHIND_BATCH_SIZE = 1000;
 
 	private Session session;
 	private Transaction tx;
+	private long fetchSize;
+
+	private boolean propertyCacheEnabled = false;
+	private final PropertyCache nodeProperties = new PropertyCache(HANDLE_CACHE_SIZE);
+	private final PropertyCache relationshipProperties = new PropertyCache(HANDLE_CACHE_SIZE);
+	private final LabelCache nodeLabels = new LabelCache(HANDLE_CACHE_SIZE);
+	private final HandleCache<Adjacency> adjacency = new HandleCache<>(HANDLE_CACHE_SIZE);
+	private final TokenRegistry tokens;
+	private MetricsRegistry metrics = MetricsRegistry.NONE;
+	// results not yet reported, which are reported when the transaction ends
+	private final Set<MeteredResult> openResults = Collections.newSetFromMap(new IdentityHashMap<>());
+	private int repeatedStatementThreshold = 0;
+	private Consumer<RepeatedStatement> repeatedStatementListener = this::logRepeatedStatement;
+	private RepeatedStatementDetector repeatedStatements = null;
+	private Hydration hydration = Hydration.NONE;
+
+	private final HandleCache<RemoteNode> nodes = new HandleCache<>(HANDLE_CACHE_SIZE);
+	private final HandleCache<RemoteRelationship> relationships = new HandleCache<>(HANDLE_CACHE_SIZE);
+
+	private boolean writeBehindEnabled = false;
+	private final WriteBehindBuffer writeBehind;
+
+	private Supplier<Session> scanSessions = null;
+	private final Set<RemoteTransaction> scans = ConcurrentHashMap.newKeySet();
 
 	public RemoteTransaction(Session session) {
+		this(session, RemoteGraphDatabaseService.DEFAULT_FETCH_SIZE);
+	}
+
+	/**
+	 * @param fetchSize the fetch size the session was configured with, which
+	 *                  is the number of records pulled per round trip
+	 */
+	public RemoteTransaction(Session session, long fetchSize) {
+		this(session, fetchSize, new TokenRegistry());
+	}
+
+	/**
+	 * @param tokens the token registry shared by the transactions of a
+	 *               service
+	 */
+	RemoteTransaction(Session session, long fetchSize, TokenRegistry tokens) {
 		this.session = session;
+		this.fetchSize = fetchSize;
 		this.tx = session.beginTransaction();
+		this.tokens = tokens;
+		this.writeBehind = new WriteBehindBuffer(this, DEFAULT_WRITE_BEHIND_BATCH_SIZE);
+	}
+
+	/**
+	 * Wraps a transaction managed by the driver, which commits, rolls back and
+	 * closes it itself.
+	 */
+	RemoteTransaction(Transaction tx, long fetchSize, TokenRegistry tokens) {
+		this.fetchSize = fetchSize;
+		this.tx = tx;
+		this.tokens = tokens;
+		this.writeBehind = new WriteBehindBuffer(this, DEFAULT_WRITE_BEHIND_BATCH_SIZE);
+	}
+
+	public long getFetchSize() {
+		return fetchSize;
+	}
+
+	public boolean isPropertyCacheEnabled() {
+		return propertyCacheEnabled;
+	}
+
+	/**
+	 * When enabled, the first property access of an entity loads its whole
+	 * property map with one query, later reads within this transaction are
+	 * answered locally.
+	 */
+	public void setPropertyCacheEnabled(boolean propertyCacheEnabled) {
+		this.propertyCacheEnabled = propertyCacheEnabled;
+		if (!propertyCacheEnabled) {
+			clearCaches();
+		}
+	}
+
+	/**
+	 * Returns the canonical handle of a node id in this transaction, without
+	 * checking that the node exists.
+	 */
+	RemoteNode node(long id) {
+		RemoteNode node = nodes.get(id);
+		if (node == null) {
+			node = new RemoteNode(this, id);
+			nodes.put(id, node);
+		}
+		return node;
+	}
+
+	/**
+	 * Returns the canonical handle of a relationship id in this transaction.
+	 * Its end nodes are only looked up when asked for.
+	 */
+	RemoteRelationship relationship(long id, long startId, long endId, RelationshipType type) {
+		RemoteRelationship relationship = relationships.get(id);
+		if (relationship == null) {
+			relationship = new RemoteRelationship(this, id, startId, endId, type);
+			relationships.put(id, relationship);
+		}
+		return relationship;
+	}
+
+	PropertyCache nodeProperties() {
+		return nodeProperties;
+	}
+
+	PropertyCache relationshipProperties() {
+		return relationshipProperties;
+	}
+
+	LabelCache nodeLabels() {
+		return nodeLabels;
+	}
+
+	TokenRegistry tokens() {
+		return tokens;
+	}
+
+	/**
+	 * Returns the adjacency summary of a node, loading it on first use.
+	 */
+	Adjacency adjacency(long id) {
+		Adjacency summary = adjacency.get(id);
+		if (summary == null) {
+			String[] types = tokens.relationshipTypeNames(this);
+			Record record = run(Statements.adjacency(types), Values.parameters("id", id)).single();
+			summary = new Adjacency(types, record.get(0));
+			// a type created by another client since the last refresh is not
+			// counted by type, but is by the degree of the node
+			if (summary.degree(Direction.BOTH) < record.get(1).asInt()) {
+				types = tokens.loadRelationshipTypeNames(this);
+				record = run(Statements.adjacency(types), Values.parameters("id", id)).single();
+				summary = new Adjacency(types, record.get(0));
+			}
+			adjacency.put(id, summary);
+		}
+		return summary;
+	}
+
+	/**
+	 * Drops the adjacency summary of a node whose relationships changed.
+	 */
+	void evictAdjacency(long id) {
+		adjacency.remove(id);
+	}
+
+	/**
+	 * Keeps the adjacency summaries in sync with a relationship created in
+	 * this transaction.
+	 */
+	void relationshipCreated(long startId, long endId, RelationshipType type) {
+		evictAdjacency(startId);
+		evictAdjacency(endId);
+		tokens.relationshipType(type.name());
+	}
+
+	public MetricsRegistry getMetricsRegistry() {
+		return metrics;
+	}
+
+	/**
+	 * Sets the registry the statements of this transaction are reported to,
+	 * {@link MetricsRegistry#NONE} by default.
+	 */
+	public void setMetricsRegistry(MetricsRegistry metrics) {
+		this.metrics = Objects.requireNonNull(metrics);
+	}
+
+	public int getRepeatedStatementThreshold() {
+		return repeatedStatementThreshold;
+	}
+
+	/**
+	 * Reports a statement template run for at least <code>threshold</code>
+	 * entities in quick succession with only the entity id changing, as when
+	 * {@link Node#getProperty(String)} is called in a loop over
+	 * {@link #findNodes(Label)}. Each run of repeats is reported once it ends,
+	 * with its call site and the batch, hydrated or prefetching API to use
+	 * instead. Detection costs a map lookup per statement and a stack walk per
+	 * report, and is off by default; 0 turns it off again.
+	 */
+	public void setRepeatedStatementThreshold(int threshold) {
+		if (threshold < 0 || threshold == 1) {
+			throw new IllegalArgumentException("Repeated statement threshold must be 0 or at least 2: " + threshold);
+		}
+		this.repeatedStatementThreshold = threshold;
+		resetRepeatedStatements();
+	}
+
+	/**
+	 * Sets where repeated statements are reported, a warning in the log by
+	 * default.
+	 */
+	public void setRepeatedStatementListener(Consumer<RepeatedStatement> listener) {
+		this.repeatedStatementListener = Objects.requireNonNull(listener);
+		resetRepeatedStatements();
+	}
+
+	private void resetRepeatedStatements() {
+		finishRepeatedStatements();
+		repeatedStatements = repeatedStatementThreshold > 0
+				? new RepeatedStatementDetector(repeatedStatementThreshold, repeatedStatementListener)
+				: null;
+	}
+
+	private void finishRepeatedStatements() {
+		if (repeatedStatements != null) {
+			repeatedStatements.finish();
+		}
+	}
+
+	private void logRepeatedStatement(RepeatedStatement statement) {
+		logger.warn(statement.toString());
+	}
+
+	public Hydration getHydration() {
+		return hydration;
+	}
+
+	/**
+	 * Sets what {@link #findNodes(Label)} and its variants,
+	 * {@link #getAllNodes()}, {@link #getAllRelationships()} and
+	 * {@link RemoteNode#getRelationships()} and its variants return besides
+	 * ids. Hydrated labels and properties are answered locally for the rest of
+	 * this transaction, whether the property cache is enabled or not.
+	 */
+	public void setHydration(Hydration hydration) {
+		this.hydration = Objects.requireNonNull(hydration);
+	}
+
+	public boolean isWriteBehindEnabled() {
+		return writeBehindEnabled;
+	}
+
+	/**
+	 * When enabled, property, label and delete operations are queued and sent
+	 * in batches: on {@link #commit()}, before any other statement runs in this
+	 * transaction, when the batch size is reached or on {@link #flush()}.
+	 * Errors of queued operations therefore surface at flush time. Removing a
+	 * property is queued as well, and returns the old value queued or cached,
+	 * or else reads it without flushing.
+	 */
+	public void setWriteBehindEnabled(boolean writeBehindEnabled) {
+		if (!writeBehindEnabled) {
+			flush();
+		}
+		this.writeBehindEnabled = writeBehindEnabled;
+	}
+
+	/**
+	 * Sets how many queued operations trigger a flush in write-behind mode.
+	 */
+	public void setWriteBehindBatchSize(int batchSize) {
+		writeBehind.setBatchSize(batchSize);
+	}
+
+	WriteBehindBuffer writeBehind() {
+		return writeBehind;
+	}
+
+	/**
+	 * Sends the operations queued in write-behind mode.
+	 */
+	public void flush() {
+		writeBehind.flush();
+	}
+
+	/**
+	 * Lets the spliterators of {@link #getAllNodes()} and
+	 * {@link #getAllRelationships()} read the ranges they are split into on
+	 * sessions of their own, see {@link RangeScan}.
+	 */
+	void setScanSessions(Supplier<Session> scanSessions) {
+		this.scanSessions = scanSessions;
+	}
+
+	boolean canScanInParallel() {
+		return scanSessions != null;
+	}
+
+	/**
+	 * Begins the transaction of a range of a parallel scan, which may be
+	 * called from any thread.
+	 */
+	RemoteTransaction beginScan() {
+		RemoteTransaction scan = new RemoteTransaction(scanSessions.get(), fetchSize, tokens);
+		scan.setMetricsRegistry(metrics);
+		scans.add(scan);
+		return scan;
+	}
+
+	void endScan(RemoteTransaction scan) {
+		if (scans.remove(scan)) {
+			scan.close();
+		}
+	}
+
+	/**
+	 * Returns the number of range transactions not ended yet.
+	 */
+	int openScans() {
+		return scans.size();
+	}
+
+	private void endScans() {
+		for (RemoteTransaction scan : scans) {
+			endScan(scan);
+		}
+	}
+
+	private void clearCaches() {
+		nodeProperties.clear();
+		relationshipProperties.clear();
+		nodeLabels.clear();
+		adjacency.clear();
+		nodes.clear();
+		relationships.clear();
+	}
+
+	Result run(Statement statement) {
+		flush();
+		logger.debug("{}", statement);
+		return execute(statement, null);
+	}
+
+	/**
+	 * Runs a compiled statement after sending the operations queued in
+	 * write-behind mode.
+	 */
+	Result run(Statement statement, Value parameters) {
+		flush();
+		return send(statement, parameters);
+	}
+
+	/**
+	 * Runs a compiled statement without flushing, for the write-behind buffer
+	 * itself.
+	 */
+	Result send(Statement statement, Value parameters) {
+		if (logger.isDebugEnabled()) {
+			logger.debug(statement + " " + parameters);
+		}
+		return execute(statement, parameters);
+	}
+
+	private Result execute(Statement statement, Value parameters) {
+		if (repeatedStatements != null) {
+			repeatedStatements.ran(statement, parameters);
+		}
+		if (metrics == MetricsRegistry.NONE) {
+			return parameters != null ? tx.run(statement.text(), parameters) : tx.run(statement.text());
+		}
+		String method = CallSites.apiMethod(statement.name());
+		long start = System.nanoTime();
+		Result result = parameters != null ? tx.run(statement.text(), parameters) : tx.run(statement.text());
+		MeteredResult metered = new MeteredResult(result, method, statement.text(), metrics, fetchSize, start,
+				openResults::remove);
+		openResults.add(metered);
+		return metered;
+	}
+
+	private void finishOpenResults() {
+		// finishing a result removes it from the set
+		for (MeteredResult result : new ArrayList<>(openResults)) {
+			result.finish();
+		}
 	}
 
 	@Override
 	public Node createNode() {
-		String query = "create (n) return id(n)";
-		logger.debug(query);
-		Result ret = tx.run(query);
-		if (ret.hasNext()) {
-			Record rec = ret.next();
-			long id = rec.get("id(n)").asLong();
-			return new RemoteNode(tx, id);
-		}
-		throw new RuntimeException("Unknown error");
+		return createNode(new Label[0]);
 	}
 
 	@Override
 	public Node createNode(Label... labels) {
-		StringBuilder strBuilder = new StringBuilder();
 		for (Label label : labels) {
-			strBuilder.append(":");
-			strBuilder.append(label.name());
+			tokens.label(label.name());
 		}
-		String query = "create (n" + strBuilder.toString() + ") return id(n)";
-		logger.debug(query);
-		Result ret = tx.run(query);
+		Result ret = run(Statements.createNode(labels));
 		if (ret.hasNext()) {
-			Record rec = ret.next();
-			long id = rec.get("id(n)").asLong();
-			return new RemoteNode(tx, id);
+			return node(ret.next().get(0).asLong());
 		}
 		throw new RuntimeException("Unknown error");
 	}
 
+	/**
+	 * Creates one node with the given labels per property map, running one
+	 * UNWIND statement per {@value #BATCH_SIZE} nodes.
+	 * 
+	 * @return the ids of the new nodes, in the order of the property maps
+	 */
+	public long[] createNodeIds(List<Map<String, Object>> properties, Label... labels) {
+		Statement statement = Statements.createNodes(labels);
+		for (Label label : labels) {
+			tokens.label(label.name());
+		}
+		properties.forEach(map -> tokens.propertyKeys(map.keySet()));
+		long[] ids = new long[properties.size()];
+		int i = 0;
+		for (int from = 0; from < properties.size(); from += BATCH_SIZE) {
+			List<Map<String, Object>> batch = properties.subList(from, Math.min(from + BATCH_SIZE, properties.size()));
+			Result ret = run(statement, Values.parameters("batch", batch));
+			while (ret.hasNext()) {
+				ids[i++] = ret.next().get(0).asLong();
+			}
+		}
+		if (i != ids.length) {
+			throw new RuntimeException("Unknown error");
+		}
+		return ids;
+	}
+
+	public long[] createNodeIds(int count, Label... labels) {
+		return createNodeIds(Collections.nCopies(count, Collections.emptyMap()), labels);
+	}
+
+	/**
+	 * Like {@link #createNodeIds(List, Label...)}, returning node handles that
+	 * are only materialized when read from the list.
+	 */
+	public List<Node> createNodes(List<Map<String, Object>> properties, Label... labels) {
+		return new NodeList(createNodeIds(properties, labels));
+	}
+
+	public List<Node> createNodes(int count, Label... labels) {
+		return new NodeList(createNodeIds(count, labels));
+	}
+
+	private class NodeList extends AbstractList<Node> {
+		private final long[] ids;
+
+		NodeList(long[] ids) {
+			this.ids = ids;
+		}
+
+		@Override
+		public Node get(int index) {
+			return RemoteTransaction.this.node(ids[index]);
+		}
+
+		@Override
+		public int size() {
+			return ids.length;
+		}
+
+	}
+
 	@Override
 	public Node getNodeById(long id) {
-		String query = "match (n) where id(n)=$id return id(n)";
-		Value value = Values.parameters("id", id);
-		logger.debug("getNodeById() " + query + " " + value.toString());
-		Result ret = tx.run(query, value);
+		Result ret = run(Statements.NODE_BY_ID, Values.parameters("id", id));
 		if (!ret.hasNext()) {
-			throw new NotFoundException("Node(id" + ") not found.");
+			throw new NotFoundException("Node(id:" + id + ") not found.");
 		}
-		return new RemoteNode(tx, id);
+		return node(id);
 	}
 
 	@Override
 	public Relationship getRelationshipById(long id) {
-		String query = "match (n)-[r]->(m) where id(r)=$id return id(n), id(m)";
-		Value value = Values.parameters("id", id);
-		logger.debug("getRelationshipById() " + query + " " + value.toString());
+		Statement statement = Statements.RELATIONSHIP_BY_ID;
+		try (RelationshipResourceIterator it = new RelationshipResourceIterator(statement,
+				run(statement, Values.parameters("id", id)))) {
+			if (!it.hasNext()) {
+				throw new NotFoundException("Relationship(id:" + id + ") not found.");
+			}
+			return it.next();
+		}
+	}
 
-		Result ret = tx.run(query, value);
-		if (!ret.hasNext()) {
-			throw new NotFoundException("Relationship(id:" + id + ") not found.");
+	/**
+	 * Looks up a batch of node ids with one UNWIND statement per
+	 * {@value #BATCH_SIZE} ids.
+	 */
+	public BatchLookup<Node> getNodesByIds(long... ids) {
+		Map<Long, Node> found = new HashMap<>();
+		Statement statement = Statements.NODES_BY_IDS;
+		for (int from = 0; from < ids.length; from += BATCH_SIZE) {
+			long[] batch = Arrays.copyOfRange(ids, from, Math.min(from + BATCH_SIZE, ids.length));
+			try (NodeResourceIterator it = new NodeResourceIterator(statement,
+					run(statement, Values.parameters("ids", batch)))) {
+				it.forEachRemaining(node -> found.put(node.getId(), node));
+			}
 		}
-		Record record = ret.single();
-		long startNodeId = record.get("id(n)").asLong();
-		long endNodeId = record.get("id(m)").asLong();
-		Node startNode = new RemoteNode(tx, startNodeId);
-		Node endNode = endNodeId == startNodeId ? startNode : new RemoteNode(tx, endNodeId);
-		return new RemoteRelationship(tx, id, startNode, endNode);
+		return lookup(ids, found);
+	}
+
+	public BatchLookup<Node> getNodesByIds(LongStream ids) {
+		return getNodesByIds(ids.toArray());
+	}
+
+	/**
+	 * Looks up a batch of relationship ids, along with their start and end
+	 * nodes and types, with one UNWIND statement per {@value #BATCH_SIZE} ids.
+	 */
+	public BatchLookup<Relationship> getRelationshipsByIds(long... ids) {
+		Map<Long, Relationship> found = new HashMap<>();
+		Statement statement = Statements.RELATIONSHIPS_BY_IDS;
+		for (int from = 0; from < ids.length; from += BATCH_SIZE) {
+			long[] batch = Arrays.copyOfRange(ids, from, Math.min(from + BATCH_SIZE, ids.length));
+			try (RelationshipResourceIterator it = new RelationshipResourceIterator(statement,
+					run(statement, Values.parameters("ids", batch)))) {
+				it.forEachRemaining(relationship -> found.put(relationship.getId(), relationship));
+			}
+		}
+		return lookup(ids, found);
+	}
+
+	public BatchLookup<Relationship> getRelationshipsByIds(LongStream ids) {
+		return getRelationshipsByIds(ids.toArray());
+	}
+
+	private static <T> BatchLookup<T> lookup(long[] ids, Map<Long, T> found) {
+		List<T> entities = new ArrayList<>(ids.length);
+		LongStream.Builder missing = LongStream.builder();
+		for (long id : ids) {
+			T entity = found.get(id);
+			if (entity == null) {
+				missing.add(id);
+			}
+			entities.add(entity);
+		}
+		return new BatchLookup<>(entities, missing.build().toArray());
 	}
 
 	@Override
 	public void commit() {
+		flush();
+		finishOpenResults();
+		finishRepeatedStatements();
+		endScans();
 		tx.commit();
-		session.close();
+		clearCaches();
+		closeSession();
 	}
 
 	@Override
 	public void rollback() {
+		writeBehind.clear();
+		finishOpenResults();
+		finishRepeatedStatements();
+		endScans();
 		tx.rollback();
-		session.close();
+		clearCaches();
+		closeSession();
 	}
 
 	@Override
 	public void close() {
+		writeBehind.clear();
+		finishOpenResults();
+		finishRepeatedStatements();
+		endScans();
 		tx.close();
-		session.close();
+		clearCaches();
+		closeSession();
+	}
+
+	private static void hydrate(PropertyCache cache, long id, Value properties, Hydration hydration) {
+		if (hydration.keys() == null) {
+			cache.put(id, properties.asMap());
+		} else {
+			cache.putPartial(id, properties.asMap());
+		}
+	}
+
+	private void closeSession() {
+		if (session != null) {
+			session.close();
+		}
 	}
 
 	@Override
 	public BidirectionalTraversalDescription bidirectionalTraversalDescription() {
-		// TODO Auto-generated method stub
-		throw new RuntimeException("Not implemented yet");
+		return new RemoteBidirectionalTraversalDescription(this);
 	}
 
 	@Override
 	public TraversalDescription traversalDescription() {
-		// TODO Auto-generated method stub
-		throw new RuntimeException("Not implemented yet");
+		return new RemoteTraversalDescription(this);
 	}
 
 	@Override
@@ -140,46 +657,96 @@ public class RemoteTransaction implements org.neo4j.graphdb.Transaction {
 		throw new RuntimeException("Not implemented yet");
 	}
 
+	/**
+	 * Checks the labels of the token registry with one query reading the
+	 * node counts of the server.
+	 */
 	@Override
 	public Iterable<Label> getAllLabelsInUse() {
-		// TODO Auto-generated method stub
-		throw new RuntimeException("Not implemented yet");
+		String[] names = tokens.labels(this).stream().map(Label::name).toArray(String[]::new);
+		List<Label> labels = new ArrayList<>();
+		if (names.length > 0) {
+			run(Statements.labelCounts(names)).forEachRemaining(rec -> {
+				if (rec.get(1).asLong() > 0) {
+					labels.add(tokens.label(names[rec.get(0).asInt()]));
+				}
+			});
+		}
+		return labels;
 	}
 
+	/**
+	 * Checks the relationship types of the token registry with one query
+	 * reading the relationship counts of the server.
+	 */
 	@Override
 	public Iterable<RelationshipType> getAllRelationshipTypesInUse() {
-		// TODO Auto-generated method stub
-		throw new RuntimeException("Not implemented yet");
+		String[] names = tokens.relationshipTypeNames(this);
+		List<RelationshipType> types = new ArrayList<>();
+		if (names.length > 0) {
+			run(Statements.relationshipTypeCounts(names)).forEachRemaining(rec -> {
+				if (rec.get(1).asLong() > 0) {
+					types.add(tokens.relationshipType(names[rec.get(0).asInt()]));
+				}
+			});
+		}
+		return types;
 	}
 
+	/**
+	 * Returns the labels of the token registry, which may miss those other
+	 * clients created since it was last refreshed.
+	 */
 	@Override
 	public Iterable<Label> getAllLabels() {
-		// TODO Auto-generated method stub
-		throw new RuntimeException("Not implemented yet");
+		return new ArrayList<>(tokens.labels(this));
 	}
 
+	/**
+	 * Like {@link #getAllLabels()} for relationship types.
+	 */
 	@Override
 	public Iterable<RelationshipType> getAllRelationshipTypes() {
-		// TODO Auto-generated method stub
-		throw new RuntimeException("Not implemented yet");
+		return new ArrayList<>(tokens.relationshipTypes(this));
 	}
 
+	/**
+	 * Like {@link #getAllLabels()} for property keys.
+	 */
 	@Override
 	public Iterable<String> getAllPropertyKeys() {
-		// TODO Auto-generated method stub
-		throw new RuntimeException("Not implemented yet");
+		return new ArrayList<>(tokens.propertyKeys(this));
 	}
 
 	@Override
 	public ResourceIterator<Node> findNodes(Label label, String key, String template, StringSearchMode searchMode) {
-		// TODO Auto-generated method stub
-		throw new RuntimeException("Not implemented yet");
+		Objects.requireNonNull(label);
+		Objects.requireNonNull(key);
+		Objects.requireNonNull(template);
+		Objects.requireNonNull(searchMode);
+		Statement statement = Statements.findNodes(hydration, label, key, searchMode);
+		return new NodeResourceIterator(statement, hydration, run(statement, Values.parameters("value1", template)));
 	}
 
+	/**
+	 * The keys are sorted, so maps with the same keys run the same statement
+	 * whatever their iteration order is.
+	 */
 	@Override
 	public ResourceIterator<Node> findNodes(Label label, Map<String, Object> propertyValues) {
-		// TODO Auto-generated method stub
-		throw new RuntimeException("Not implemented yet");
+		Objects.requireNonNull(label);
+		Objects.requireNonNull(propertyValues);
+		if (propertyValues.isEmpty()) {
+			return findNodes(label);
+		}
+		String[] keys = propertyValues.keySet().toArray(new String[0]);
+		Arrays.sort(keys);
+		Map<String, Object> parameters = new HashMap<>();
+		for (int i = 0; i < keys.length; i++) {
+			parameters.put("value" + (i + 1), Objects.requireNonNull(propertyValues.get(keys[i])));
+		}
+		Statement statement = Statements.findNodes(hydration, label, keys);
+		return new NodeResourceIterator(statement, hydration, run(statement, Values.value(parameters)));
 	}
 
 	@Override
@@ -192,12 +759,9 @@ public class RemoteTransaction implements org.neo4j.graphdb.Transaction {
 		Objects.requireNonNull(value2);
 		Objects.requireNonNull(key3);
 		Objects.requireNonNull(value3);
-		String query = "match (n:" + label.name() + ") where n." + key1 + "=$value1 and n." + key2 + "=$value2 and n."
-				+ key3 + "=$value3 return id(n)";
+		Statement statement = Statements.findNodes(hydration, label, key1, key2, key3);
 		Value value = Values.parameters("value1", value1, "value2", value2, "value3", value3);
-		logger.debug("findNodes() " + query + " " + value.toString());
-		Result ret = tx.run(query, value);
-		return new NodeResourceIterator(ret);
+		return new NodeResourceIterator(statement, hydration, run(statement, value));
 	}
 
 	@Override
@@ -207,12 +771,9 @@ public class RemoteTransaction implements org.neo4j.graphdb.Transaction {
 		Objects.requireNonNull(value1);
 		Objects.requireNonNull(key2);
 		Objects.requireNonNull(value2);
-		String query = "match (n:" + label.name() + ") where n." + key1 + "=$value1 and n." + key2
-				+ "=$value2 return id(n)";
+		Statement statement = Statements.findNodes(hydration, label, key1, key2);
 		Value value = Values.parameters("value1", value1, "value2", value2);
-		logger.debug("findNodes() " + query + " " + value.toString());
-		Result ret = tx.run(query, value);
-		return new NodeResourceIterator(ret);
+		return new NodeResourceIterator(statement, hydration, run(statement, value));
 	}
 
 	@Override
@@ -220,40 +781,49 @@ public class RemoteTransaction implements org.neo4j.graphdb.Transaction {
 		Objects.requireNonNull(label);
 		Objects.requireNonNull(key);
 		Objects.requireNonNull(value);
-		String query = "match (n:" + label.name() + ") where n." + key + "=$val return id(n)";
-		Result ret = tx.run(query, Values.parameters("val", value));
-		if (ret.hasNext()) {
-			long id = ret.next().get("id(n)").asLong();
-			if (ret.hasNext()) {
-				throw new MultipleFoundException("More than one node found");
+		Statement statement = Statements.findNodes(hydration, label, key);
+		try (NodeResourceIterator it = new NodeResourceIterator(statement, hydration,
+				run(statement, Values.parameters("value1", value)))) {
+			if (it.hasNext()) {
+				Node node = it.next();
+				if (it.hasNext()) {
+					throw new MultipleFoundException("More than one node found");
+				}
+				return node;
+			} else {
+				return null;
 			}
-			return new RemoteNode(tx, id);
-		} else {
-			return null;
 		}
 	}
 
-	public class NodeResourceIterator implements ResourceIterator<Node> {
-		private Result result;
+	public class NodeResourceIterator extends RecordResourceIterator<Node> {
+		private final Hydration hydration;
+		private final int idColumn;
+		private final int labelsColumn;
+		private final int propertiesColumn;
 
-		public NodeResourceIterator(Result result) {
-			this.result = result;
+		NodeResourceIterator(Statement statement, Result result) {
+			this(statement, Hydration.NONE, result);
 		}
 
-		@Override
-		public boolean hasNext() {
-			return result.hasNext();
-		}
-
-		@Override
-		public Node next() {
-			long id = result.next().get("id(n)").asLong();
-			return new RemoteNode(tx, id);
+		NodeResourceIterator(Statement statement, Hydration hydration, Result result) {
+			super(result);
+			this.hydration = hydration;
+			this.idColumn = statement.column("id");
+			this.labelsColumn = statement.indexOf("labels");
+			this.propertiesColumn = statement.indexOf("properties");
 		}
 
 		@Override
-		public void close() {
-			result = null;
+		protected Node decode(Record record) {
+			long id = record.get(idColumn).asLong();
+			if (labelsColumn >= 0) {
+				nodeLabels.put(id, record.get(labelsColumn).asList(Value::asString));
+			}
+			if (propertiesColumn >= 0) {
+				hydrate(nodeProperties, id, record.get(propertiesColumn), hydration);
+			}
+			return RemoteTransaction.this.node(id);
 		}
 
 	}
@@ -263,17 +833,31 @@ public class RemoteTransaction implements org.neo4j.graphdb.Transaction {
 		Objects.requireNonNull(label);
 		Objects.requireNonNull(key);
 		Objects.requireNonNull(value);
-		String query = "match (n:" + label.name() + ") where n." + key + "=$value return id(n)";
-		Result ret = tx.run(query, Values.parameters("value", value));
-		return new NodeResourceIterator(ret);
+		return findNodes(label, key, value, hydration);
+	}
+
+	/**
+	 * Like {@link #findNodes(Label, String, Object)}, with the given hydration
+	 * instead of the one of this transaction.
+	 */
+	public ResourceIterator<Node> findNodes(Label label, String key, Object value, Hydration hydration) {
+		Objects.requireNonNull(label);
+		Objects.requireNonNull(key);
+		Objects.requireNonNull(value);
+		Statement statement = Statements.findNodes(hydration, label, key);
+		return new NodeResourceIterator(statement, hydration, run(statement, Values.parameters("value1", value)));
 	}
 
 	@Override
 	public ResourceIterator<Node> findNodes(Label label) {
 		Objects.requireNonNull(label);
-		String query = "match (n:" + label.name() + ") return id(n)";
-		Result ret = tx.run(query);
-		return new NodeResourceIterator(ret);
+		return findNodes(label, hydration);
+	}
+
+	public ResourceIterator<Node> findNodes(Label label, Hydration hydration) {
+		Objects.requireNonNull(label);
+		Statement statement = Statements.findNodes(hydration, label);
+		return new NodeResourceIterator(statement, hydration, run(statement));
 	}
 
 	@Override
@@ -282,44 +866,95 @@ public class RemoteTransaction implements org.neo4j.graphdb.Transaction {
 		throw new RuntimeException("Not implemented yet");
 	}
 
+	/**
+	 * A parallel stream of the returned iterable reads the ranges of ids it
+	 * is split into on sessions of their own, if the service enables
+	 * {@link RemoteGraphDatabaseService#setParallelScansEnabled(boolean)
+	 * parallel scans}.
+	 */
 	@Override
 	public ResourceIterable<Node> getAllNodes() {
-		String query = "match (n) return id(n)";
-		return () -> new NodeResourceIterator(tx.run(query));
+		return getAllNodes(hydration);
 	}
 
-	public class RelationshipResourceIterator implements ResourceIterator<Relationship> {
-		private Result result;
+	/**
+	 * Like {@link #getAllNodes()}, with the given hydration instead of the one
+	 * of this transaction.
+	 */
+	public ResourceIterable<Node> getAllNodes(Hydration hydration) {
+		Statement statement = Statements.allNodes(hydration);
+		return new RangeScan<>(this, () -> new NodeResourceIterator(statement, hydration, run(statement)),
+				Statements.NODE_COUNT, Statements.MAX_NODE_ID, (scan, from, to) -> scan.nodeRange(hydration, from, to));
+	}
 
-		public RelationshipResourceIterator(Result result) {
-			this.result = result;
-		}
+	private ResourceIterator<Node> nodeRange(Hydration hydration, long from, long to) {
+		Statement statement = Statements.nodeRange(hydration);
+		return new NodeResourceIterator(statement, hydration,
+				run(statement, Values.parameters("from", from, "to", to)));
+	}
 
-		@Override
-		public boolean hasNext() {
-			return result.hasNext();
+	public class RelationshipResourceIterator extends RecordResourceIterator<Relationship> {
+		private final Hydration hydration;
+		private final int idColumn;
+		private final int startIdColumn;
+		private final int endIdColumn;
+		private final int typeColumn;
+		private final int propertiesColumn;
+
+		RelationshipResourceIterator(Statement statement, Result result) {
+			this(statement, Hydration.NONE, result);
 		}
 
-		@Override
-		public Relationship next() {
-			Record rec = result.next();
-			long id = rec.get("id(r)").asLong();
-			Node startNode = new RemoteNode(tx, rec.get("id(startNode(r))").asLong());
-			Node endNode = new RemoteNode(tx, rec.get("id(endNode(r))").asLong());
-			return new RemoteRelationship(tx, id, startNode, endNode);
+		RelationshipResourceIterator(Statement statement, Hydration hydration, Result result) {
+			super(result);
+			this.hydration = hydration;
+			this.idColumn = statement.column("id");
+			this.startIdColumn = statement.column("startId");
+			this.endIdColumn = statement.column("endId");
+			this.typeColumn = statement.column("type");
+			this.propertiesColumn = statement.indexOf("properties");
 		}
 
 		@Override
-		public void close() {
-			result = null;
+		protected Relationship decode(Record rec) {
+			long id = rec.get(idColumn).asLong();
+			long startId = rec.get(startIdColumn).asLong();
+			long endId = rec.get(endIdColumn).asLong();
+			RelationshipType type = tokens.relationshipType(rec.get(typeColumn).asString());
+			if (propertiesColumn >= 0) {
+				hydrate(relationshipProperties, id, rec.get(propertiesColumn), hydration);
+			}
+			return RemoteTransaction.this.relationship(id, startId, endId, type);
 		}
 
 	}
 
+	/**
+	 * A parallel stream of the returned iterable reads the ranges of ids it
+	 * is split into on sessions of their own, if the service enables
+	 * {@link RemoteGraphDatabaseService#setParallelScansEnabled(boolean)
+	 * parallel scans}.
+	 */
 	@Override
 	public ResourceIterable<Relationship> getAllRelationships() {
-		String query = "match ()-[r]-() return id(r), id(startNode(r)), id(endNode(r))";
-		return () -> new RelationshipResourceIterator(tx.run(query));
+		return getAllRelationships(hydration);
+	}
+
+	/**
+	 * Like {@link #getAllRelationships()}, with the given hydration instead of
+	 * the one of this transaction.
+	 */
+	public ResourceIterable<Relationship> getAllRelationships(Hydration hydration) {
+		Statement statement = Statements.allRelationships(hydration);
+		return new RangeScan<>(this, () -> new RelationshipResourceIterator(statement, hydration, run(statement)),
+				Statements.RELATIONSHIP_COUNT, Statements.MAX_RELATIONSHIP_ID,
+				(scan, from, to) -> scan.relationshipRange(hydration, from, to));
+	}
+
+	private ResourceIterator<Relationship> relationshipRange(Hydration hydration, long from, long to) {
+		Statement statement = Statements.relationshipRange(hydration);
+		return new RelationshipResourceIterator(statement, hydration,
+				run(statement, Values.parameters("from", from, "to", to)));
 	}
 
 	@Override
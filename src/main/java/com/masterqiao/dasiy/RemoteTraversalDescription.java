@@ -0,0 +1,235 @@
+package com.masterqiao.dasiy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.PathExpander;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.traversal.BranchOrderingPolicies;
+import org.neo4j.graphdb.traversal.BranchOrderingPolicy;
+import org.neo4j.graphdb.traversal.Evaluator;
+import org.neo4j.graphdb.traversal.InitialBranchState;
+import org.neo4j.graphdb.traversal.PathEvaluator;
+import org.neo4j.graphdb.traversal.TraversalDescription;
+import org.neo4j.graphdb.traversal.Traverser;
+import org.neo4j.graphdb.traversal.Uniqueness;
+import org.neo4j.graphdb.traversal.UniquenessFactory;
+
+/**
+ * A traversal description of the Remote wrapper. Traversals proceed level by
+ * level: each depth expands the whole frontier with one UNWIND statement per
+ * {@value RemoteTransaction#BATCH_SIZE} nodes, then applies the evaluators and
+ * the uniqueness on the client, so a traversal costs round trips in the order
+ * of its depth rather than of the nodes it visits.
+ * <p>
+ * Paths are therefore returned in breadth-first order whatever the branch
+ * ordering policy is; with {@link Uniqueness#NODE_GLOBAL} and the like, the
+ * paths found are those a breadth-first traversal finds. A custom
+ * {@link PathExpander} cannot be sent to the server and is called once per
+ * path, costing a round trip per path.
+ */
+public class RemoteTraversalDescription implements TraversalDescription {
+	private final RemoteTransaction tx;
+
+	private List<Expansion> expansions = Collections.emptyList();
+	private PathExpander<?> expander = null;
+	private InitialBranchState<?> initialState = null;
+	private List<Evaluator> evaluators = Collections.emptyList();
+	private UniquenessFactory uniqueness = Uniqueness.NODE_GLOBAL;
+	private Object uniquenessParameter = null;
+	private BranchOrderingPolicy order = BranchOrderingPolicies.PREORDER_DEPTH_FIRST;
+	private Comparator<? super Path> sorting = null;
+
+	RemoteTraversalDescription(RemoteTransaction tx) {
+		this.tx = tx;
+	}
+
+	private RemoteTraversalDescription copy() {
+		RemoteTraversalDescription description = new RemoteTraversalDescription(tx);
+		description.expansions = expansions;
+		description.expander = expander;
+		description.initialState = initialState;
+		description.evaluators = evaluators;
+		description.uniqueness = uniqueness;
+		description.uniquenessParameter = uniquenessParameter;
+		description.order = order;
+		description.sorting = sorting;
+		return description;
+	}
+
+	@Override
+	public TraversalDescription uniqueness(UniquenessFactory uniqueness) {
+		return uniqueness(uniqueness, null);
+	}
+
+	/**
+	 * Supports the {@link Uniqueness} constants. The parameter of the
+	 * <code>*_RECENT</code> ones is the number of recent entities remembered,
+	 * 1000 by default.
+	 */
+	@Override
+	public TraversalDescription uniqueness(UniquenessFactory uniqueness, Object parameter) {
+		if (!(uniqueness instanceof Uniqueness)) {
+			throw new IllegalArgumentException("Unsupported uniqueness: " + uniqueness);
+		}
+		RemoteTraversalDescription description = copy();
+		description.uniqueness = uniqueness;
+		description.uniquenessParameter = parameter;
+		return description;
+	}
+
+	@Override
+	public TraversalDescription evaluator(Evaluator evaluator) {
+		RemoteTraversalDescription description = copy();
+		List<Evaluator> list = new ArrayList<>(evaluators);
+		list.add(Objects.requireNonNull(evaluator));
+		description.evaluators = Collections.unmodifiableList(list);
+		return description;
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public TraversalDescription evaluator(PathEvaluator evaluator) {
+		return evaluator((Evaluator) evaluator);
+	}
+
+	@Override
+	public TraversalDescription order(BranchOrderingPolicy order) {
+		RemoteTraversalDescription description = copy();
+		description.order = Objects.requireNonNull(order);
+		return description;
+	}
+
+	@Override
+	public TraversalDescription depthFirst() {
+		return order(BranchOrderingPolicies.PREORDER_DEPTH_FIRST);
+	}
+
+	@Override
+	public TraversalDescription breadthFirst() {
+		return order(BranchOrderingPolicies.PREORDER_BREADTH_FIRST);
+	}
+
+	@Override
+	public TraversalDescription relationships(RelationshipType type) {
+		return relationships(type, Direction.BOTH);
+	}
+
+	@Override
+	public TraversalDescription relationships(RelationshipType type, Direction direction) {
+		RemoteTraversalDescription description = copy();
+		List<Expansion> list = new ArrayList<>(expansions);
+		list.add(new Expansion(Objects.requireNonNull(type), Objects.requireNonNull(direction)));
+		description.expansions = Collections.unmodifiableList(list);
+		description.expander = null;
+		description.initialState = null;
+		return description;
+	}
+
+	@Override
+	public TraversalDescription expand(PathExpander<?> expander) {
+		RemoteTraversalDescription description = copy();
+		description.expander = Objects.requireNonNull(expander);
+		description.initialState = null;
+		return description;
+	}
+
+	@Override
+	public <S> TraversalDescription expand(PathExpander<S> expander, InitialBranchState<S> initialState) {
+		RemoteTraversalDescription description = copy();
+		description.expander = Objects.requireNonNull(expander);
+		description.initialState = initialState;
+		return description;
+	}
+
+	@Override
+	public TraversalDescription sort(Comparator<? super Path> sorting) {
+		RemoteTraversalDescription description = copy();
+		description.sorting = sorting;
+		return description;
+	}
+
+	@Override
+	public TraversalDescription reverse() {
+		RemoteTraversalDescription description = copy();
+		if (expander != null) {
+			description.expander = expander.reverse();
+		} else {
+			List<Expansion> list = new ArrayList<>(expansions.size());
+			for (Expansion expansion : expansions) {
+				list.add(new Expansion(expansion.type, expansion.direction.reverse()));
+			}
+			description.expansions = Collections.unmodifiableList(list);
+		}
+		return description;
+	}
+
+	@Override
+	public Traverser traverse(Node startNode) {
+		return traverse(Collections.singletonList(startNode));
+	}
+
+	@Override
+	public Traverser traverse(Node... startNodes) {
+		return traverse(Arrays.asList(startNodes));
+	}
+
+	@Override
+	public Traverser traverse(Iterable<Node> startNodes) {
+		return new RemoteTraverser(this, startNodes);
+	}
+
+	RemoteTransaction transaction() {
+		return tx;
+	}
+
+	List<Expansion> expansions() {
+		return expansions;
+	}
+
+	PathExpander<?> expander() {
+		return expander;
+	}
+
+	InitialBranchState<?> initialState() {
+		return initialState;
+	}
+
+	List<Evaluator> evaluators() {
+		return evaluators;
+	}
+
+	Uniqueness uniqueness() {
+		return (Uniqueness) uniqueness;
+	}
+
+	Object uniquenessParameter() {
+		return uniquenessParameter;
+	}
+
+	Comparator<? super Path> sorting() {
+		return sorting;
+	}
+
+	/**
+	 * A relationship type to follow in a direction.
+	 */
+	static final class Expansion {
+		final RelationshipType type;
+		final Direction direction;
+
+		Expansion(RelationshipType type, Direction direction) {
+			this.type = type;
+			this.direction = direction;
+		}
+
+	}
+
+}
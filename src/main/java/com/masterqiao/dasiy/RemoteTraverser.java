@@ -0,0 +1,160 @@
+package com.masterqiao.dasiy;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Path;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.ResourceIterable;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.traversal.TraversalMetadata;
+import org.neo4j.graphdb.traversal.Traverser;
+
+/**
+ * The traverser of a {@link RemoteTraversalDescription}. Each call of
+ * {@link #iterator()} runs the traversal again, expanding one level whenever
+ * the paths of the previous one are consumed.
+ */
+public class RemoteTraverser implements Traverser {
+	private final RemoteTraversalDescription description;
+	private final Iterable<Node> startNodes;
+
+	private int pathsReturned = 0;
+	private int relationshipsTraversed = 0;
+	private int expansionQueries = 0;
+
+	RemoteTraverser(RemoteTraversalDescription description, Iterable<Node> startNodes) {
+		this.description = description;
+		this.startNodes = startNodes;
+	}
+
+	@Override
+	public ResourceIterator<Path> iterator() {
+		pathsReturned = 0;
+		relationshipsTraversed = 0;
+		expansionQueries = 0;
+		ResourceIterator<Path> it = new TraversalIterator();
+		if (description.sorting() == null) {
+			return it;
+		}
+		List<Path> paths = new ArrayList<>();
+		it.forEachRemaining(paths::add);
+		paths.sort(description.sorting());
+		return new MappingIterator<>(paths.iterator(), Function.identity());
+	}
+
+	@Override
+	public ResourceIterable<Node> nodes() {
+		return () -> new MappingIterator<>(iterator(), Path::endNode);
+	}
+
+	@Override
+	public ResourceIterable<Relationship> relationships() {
+		return () -> new MappingIterator<>(iterator(), Path::lastRelationship);
+	}
+
+	/**
+	 * Returns the counts of the last iteration.
+	 */
+	@Override
+	public TraversalMetadata metadata() {
+		return new TraversalMetadata() {
+
+			@Override
+			public int getNumberOfPathsReturned() {
+				return pathsReturned;
+			}
+
+			@Override
+			public int getNumberOfRelationshipsTraversed() {
+				return relationshipsTraversed;
+			}
+
+		};
+	}
+
+	/**
+	 * Returns the number of expansion queries of the last iteration.
+	 */
+	public int getNumberOfExpansionQueries() {
+		return expansionQueries;
+	}
+
+	private class TraversalIterator implements ResourceIterator<Path> {
+		private final ArrayDeque<Path> ready = new ArrayDeque<>();
+		private final TraversalFrontier frontier = new TraversalFrontier(description, startNodes);
+
+		@Override
+		public boolean hasNext() {
+			while (ready.isEmpty() && !frontier.isExhausted()) {
+				ready.addAll(frontier.next());
+				relationshipsTraversed = frontier.getNumberOfRelationshipsTraversed();
+				expansionQueries = frontier.getNumberOfExpansionQueries();
+			}
+			return !ready.isEmpty();
+		}
+
+		@Override
+		public Path next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			pathsReturned++;
+			return ready.poll();
+		}
+
+		@Override
+		public void close() {
+			ready.clear();
+			frontier.close();
+		}
+
+	}
+
+	/**
+	 * Maps the elements of an iterator, skipping those mapped to null such as
+	 * the missing last relationship of a path of length 0.
+	 */
+	static class MappingIterator<F, T> implements ResourceIterator<T> {
+		private final Iterator<F> it;
+		private final Function<F, T> mapping;
+		private T next = null;
+
+		MappingIterator(Iterator<F> it, Function<F, T> mapping) {
+			this.it = it;
+			this.mapping = mapping;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (next == null && it.hasNext()) {
+				next = mapping.apply(it.next());
+			}
+			return next != null;
+		}
+
+		@Override
+		public T next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			T element = next;
+			next = null;
+			return element;
+		}
+
+		@Override
+		public void close() {
+			if (it instanceof ResourceIterator) {
+				((ResourceIterator<?>) it).close();
+			}
+		}
+
+	}
+
+}
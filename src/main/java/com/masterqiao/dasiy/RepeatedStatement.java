@@ -0,0 +1,60 @@
+package com.masterqiao.dasiy;
+
+/**
+ * A statement template run many times in quick succession for one entity
+ * after the other, the N+1 pattern of reading each result of a query on its
+ * own round trip.
+ */
+public class RepeatedStatement {
+	private final String method;
+	private final String template;
+	private final long count;
+	private final StackTraceElement callSite;
+	private final String suggestion;
+
+	RepeatedStatement(String method, String template, long count, StackTraceElement callSite, String suggestion) {
+		this.method = method;
+		this.template = template;
+		this.count = count;
+		this.callSite = callSite;
+		this.suggestion = suggestion;
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	public String getTemplate() {
+		return template;
+	}
+
+	/**
+	 * Returns the number of entities the statement was run for.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the first frame outside this wrapper when the repeats were
+	 * detected, or <code>null</code> if there is none.
+	 */
+	public StackTraceElement getCallSite() {
+		return callSite;
+	}
+
+	/**
+	 * Returns the batch, hydrated or prefetching API that reads the same data
+	 * in one statement.
+	 */
+	public String getSuggestion() {
+		return suggestion;
+	}
+
+	@Override
+	public String toString() {
+		return method + " ran " + count + " times for different entities at " + callSite + ", " + suggestion + ": "
+				+ template;
+	}
+
+}
@@ -0,0 +1,123 @@
+package com.masterqiao.dasiy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.neo4j.driver.Value;
+
+/**
+ * Watches the statements of a transaction for one template run for entity
+ * after entity, counting the changes of the <code>id</code> parameter. Other
+ * parameters are not compared, so a loop reading several property keys of
+ * each node counts once per node. A run of repeats ends when the template has
+ * not run for {@link #WINDOW_MILLIS}, or when the transaction ends, and is
+ * reported if it reached the threshold.
+ */
+class RepeatedStatementDetector {
+
+	/**
+	 * Longest pause between two repeats of a template still counted as one
+	 * run.
+	 */
+	static final long WINDOW_MILLIS = 1000;
+
+	private final int threshold;
+	private final Consumer<RepeatedStatement> listener;
+	// compiled statements are canonical, so identity is the template
+	private final Map<Statement, Repeats> repeats = new HashMap<>();
+
+	RepeatedStatementDetector(int threshold, Consumer<RepeatedStatement> listener) {
+		this.threshold = threshold;
+		this.listener = listener;
+	}
+
+	void ran(Statement statement, Value parameters) {
+		if (parameters == null || !parameters.containsKey("id")) {
+			return;
+		}
+		long now = System.nanoTime();
+		long id = parameters.get("id").asLong();
+		Repeats current = repeats.get(statement);
+		if (current != null && now - current.lastRun > TimeUnit.MILLISECONDS.toNanos(WINDOW_MILLIS)) {
+			report(statement, current);
+			current = null;
+		}
+		if (current == null) {
+			repeats.put(statement, new Repeats(id, now));
+			return;
+		}
+		current.lastRun = now;
+		if (current.lastId == id) {
+			return;
+		}
+		current.lastId = id;
+		if (++current.count == threshold) {
+			current.callSite = CallSites.caller();
+		}
+	}
+
+	/**
+	 * Reports the runs still going, when the transaction ends.
+	 */
+	void finish() {
+		for (Map.Entry<Statement, Repeats> entry : new ArrayList<>(repeats.entrySet())) {
+			report(entry.getKey(), entry.getValue());
+		}
+		repeats.clear();
+	}
+
+	private void report(Statement statement, Repeats run) {
+		repeats.remove(statement);
+		if (run.count >= threshold) {
+			listener.accept(new RepeatedStatement(statement.name(), statement.text(), run.count, run.callSite,
+					suggestion(statement.name())));
+		}
+	}
+
+	static String suggestion(String method) {
+		String name = method.substring(method.indexOf('.') + 1);
+		switch (name) {
+		case "getNodeById":
+			return "look the nodes up with getNodesByIds";
+		case "getRelationshipById":
+			return "look the relationships up with getRelationshipsByIds";
+		case "getProperty":
+		case "getProperties":
+		case "getAllProperties":
+		case "getPropertyKeys":
+		case "hasProperty":
+			return "load the properties with the query through setHydration, or turn on setPropertyCacheEnabled";
+		case "getLabels":
+		case "hasLabel":
+			return "load the labels with the query through setHydration(Hydration.ALL)";
+		case "getRelationships":
+			return "expand the nodes together with traversalDescription()";
+		case "getDegree":
+			return "expand the nodes together with traversalDescription(), or keep the nodes to reuse their summary";
+		case "setProperty":
+		case "addLabel":
+		case "removeLabel":
+		case "delete":
+			return "batch the writes with setWriteBehindEnabled";
+		default:
+			return "run one statement over the ids with UNWIND";
+		}
+	}
+
+	private static class Repeats {
+		long lastId;
+		long lastRun;
+		long count = 1;
+		StackTraceElement callSite = null;
+
+		Repeats(long id, long now) {
+			this.lastId = id;
+			this.lastRun = now;
+		}
+
+	}
+
+}
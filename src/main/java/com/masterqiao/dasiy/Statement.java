@@ -0,0 +1,56 @@
+package com.masterqiao.dasiy;
+
+/**
+ * A compiled Cypher statement: the canonical query text of one statement
+ * shape, the name of the operation it serves and the names of its result
+ * columns, so records can be decoded by index.
+ */
+final class Statement {
+	private final String name;
+	private final String text;
+	private final String[] columns;
+
+	Statement(String name, String text, String... columns) {
+		this.name = name;
+		this.text = text;
+		this.columns = columns;
+	}
+
+	String name() {
+		return name;
+	}
+
+	String text() {
+		return text;
+	}
+
+	/**
+	 * Returns the index of a result column, to be looked up once and used for
+	 * every record of a result.
+	 */
+	int column(String column) {
+		int index = indexOf(column);
+		if (index < 0) {
+			throw new IllegalArgumentException("No column " + column + " in " + name);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the index of an optional result column, or -1.
+	 */
+	int indexOf(String column) {
+		for (int i = 0; i < columns.length; i++) {
+			if (columns[i].equals(column)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public String toString() {
+		return name + ": " + text;
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.masterqiao.dasiy;
+
+/**
+ * A snapshot of the metrics of a statement template, or of an API method over
+ * all its templates. Latencies are in microseconds.
+ */
+public class StatementMetrics {
+	private final String method;
+	private final String template;
+	private final long calls;
+	private final long roundTrips;
+	private final long rows;
+	private final long p50Micros;
+	private final long p99Micros;
+	private final long p999Micros;
+
+	StatementMetrics(String method, String template, long calls, long roundTrips, long rows,
+			LatencyHistogram latencies) {
+		this.method = method;
+		this.template = template;
+		this.calls = calls;
+		this.roundTrips = roundTrips;
+		this.rows = rows;
+		this.p50Micros = latencies.percentile(0.5) / 1000;
+		this.p99Micros = latencies.percentile(0.99) / 1000;
+		this.p999Micros = latencies.percentile(0.999) / 1000;
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	/**
+	 * Returns the statement text, or an empty string for the metrics of a
+	 * method.
+	 */
+	public String getTemplate() {
+		return template;
+	}
+
+	public long getCalls() {
+		return calls;
+	}
+
+	public long getRoundTrips() {
+		return roundTrips;
+	}
+
+	public long getRows() {
+		return rows;
+	}
+
+	public long getP50Micros() {
+		return p50Micros;
+	}
+
+	public long getP99Micros() {
+		return p99Micros;
+	}
+
+	public long getP999Micros() {
+		return p999Micros;
+	}
+
+	@Override
+	public String toString() {
+		return method + " calls=" + calls + " roundTrips=" + roundTrips + " rows=" + rows + " p50=" + p50Micros
+				+ "us p99=" + p99Micros + "us p999=" + p999Micros + "us" + (template.isEmpty() ? "" : " " + template);
+	}
+
+}
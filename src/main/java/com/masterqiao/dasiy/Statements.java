@@ -0,0 +1,597 @@
+package com.masterqiao.dasiy;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.StringSearchMode;
+
+/**
+ * The statements run by the Remote wrapper. Statements whose text does not
+ * depend on the arguments are constants, the others are compiled once per
+ * shape (labels, property keys, direction, relationship types) and cached,
+ * so every call of the same shape runs the same canonical query text and hits
+ * the plan cache of the server. Entity ids and values are always parameters,
+ * labels, types and keys are escaped identifiers.
+ */
+final class Statements {
+
+	/**
+	 * The result columns of every statement returning relationships.
+	 */
+	static final String[] RELATIONSHIP_COLUMNS = { "id", "startId", "endId", "type" };
+
+	private static final String RETURN_RELATIONSHIP = " return id(r) as id, id(startNode(r)) as startId,"
+			+ " id(endNode(r)) as endId, type(r) as type";
+
+	private static final String MATCH_NODE = "match (n) where id(n)=$id";
+	private static final String MATCH_RELATIONSHIP = "match ()-[r]->() where id(r)=$id";
+
+	private static final ShapeCache createNode = new ShapeCache();
+	private static final ShapeCache createNodes = new ShapeCache();
+	private static final ShapeCache addLabel = new ShapeCache();
+	private static final ShapeCache removeLabel = new ShapeCache();
+	private static final ShapeCache batchAddLabel = new ShapeCache();
+	private static final ShapeCache batchRemoveLabel = new ShapeCache();
+	private static final ShapeCache createRelationship = new ShapeCache();
+	private static final ShapeCache adjacency = new ShapeCache();
+	private static final ShapeCache labelCounts = new ShapeCache();
+	private static final ShapeCache relationshipTypeCounts = new ShapeCache();
+	private static final ShapeCache expand = new ShapeCache();
+	private static final ShapeCache allNodes = new ShapeCache();
+	private static final ShapeCache allRelationships = new ShapeCache();
+	private static final ShapeCache deleteNodes = new ShapeCache();
+	private static final ShapeCache importNodes = new ShapeCache();
+	private static final ShapeCache importRelationships = new ShapeCache();
+
+	/*
+	 * Shapes of hydrated statements, by hydration key.
+	 */
+	private static final ConcurrentMap<String, ShapeCache> relationships = new ConcurrentHashMap<>();
+	private static final ConcurrentMap<String, ShapeCache> findNodes = new ConcurrentHashMap<>();
+	private static final ConcurrentMap<String, ShapeCache> searchNodes = new ConcurrentHashMap<>();
+
+	static final Statement NODE_BY_ID = new Statement("Transaction.getNodeById", MATCH_NODE + " return id(n) as id",
+			"id");
+	static final Statement NODE_PROPERTIES = new Statement("Node.getAllProperties",
+			MATCH_NODE + " return properties(n) as properties", "properties");
+	static final Statement NODE_PROPERTY = new Statement("Node.getProperty", MATCH_NODE + " return n[$key] as value",
+			"value");
+	static final Statement NODE_PROPERTY_VALUES = new Statement("Node.getProperties",
+			MATCH_NODE + " return [key in $keys | n[key]] as values", "values");
+	static final Statement NODE_PROPERTY_KEYS = new Statement("Node.getPropertyKeys",
+			MATCH_NODE + " return keys(n) as keys", "keys");
+	static final Statement NODE_HAS_PROPERTY = new Statement("Node.hasProperty",
+			MATCH_NODE + " return n[$key] is not null as exists", "exists");
+	static final Statement NODE_SET_PROPERTIES = new Statement("Node.setProperty", MATCH_NODE + " set n += $props");
+	static final Statement NODE_LABELS = new Statement("Node.getLabels", MATCH_NODE + " return labels(n) as labels",
+			"labels");
+	static final Statement NODE_HAS_LABEL = new Statement("Node.hasLabel",
+			MATCH_NODE + " return $label in labels(n) as hasLabel", "hasLabel");
+	static final Statement NODE_DELETE = new Statement("Node.delete", MATCH_NODE + " delete n");
+
+	static final Statement RELATIONSHIP_BY_ID = new Statement("Transaction.getRelationshipById",
+			MATCH_RELATIONSHIP + RETURN_RELATIONSHIP, RELATIONSHIP_COLUMNS);
+	static final Statement RELATIONSHIP_PROPERTIES = new Statement("Relationship.getAllProperties",
+			MATCH_RELATIONSHIP + " return properties(r) as properties", "properties");
+	static final Statement RELATIONSHIP_PROPERTY = new Statement("Relationship.getProperty",
+			MATCH_RELATIONSHIP + " return r[$key] as value", "value");
+	static final Statement RELATIONSHIP_PROPERTY_VALUES = new Statement("Relationship.getProperties",
+			MATCH_RELATIONSHIP + " return [key in $keys | r[key]] as values", "values");
+	static final Statement RELATIONSHIP_PROPERTY_KEYS = new Statement("Relationship.getPropertyKeys",
+			MATCH_RELATIONSHIP + " return keys(r) as keys", "keys");
+	static final Statement RELATIONSHIP_HAS_PROPERTY = new Statement("Relationship.hasProperty",
+			MATCH_RELATIONSHIP + " return r[$key] is not null as exists", "exists");
+	static final Statement RELATIONSHIP_SET_PROPERTIES = new Statement("Relationship.setProperty",
+			MATCH_RELATIONSHIP + " set r += $props");
+	static final Statement RELATIONSHIP_DELETE = new Statement("Relationship.delete",
+			MATCH_RELATIONSHIP + " delete r");
+
+	static final Statement LABELS = new Statement("Transaction.getAllLabels",
+			"call db.labels() yield label return label", "label");
+	static final Statement RELATIONSHIP_TYPES = new Statement("Transaction.getAllRelationshipTypes",
+			"call db.relationshipTypes() yield relationshipType return relationshipType as type", "type");
+	static final Statement PROPERTY_KEYS = new Statement("Transaction.getAllPropertyKeys",
+			"call db.propertyKeys() yield propertyKey return propertyKey as key", "key");
+
+	static final Statement NODES_BY_IDS = new Statement("Transaction.getNodesByIds",
+			"unwind $ids as id match (n) where id(n)=id return id(n) as id", "id");
+	static final Statement RELATIONSHIPS_BY_IDS = new Statement("Transaction.getRelationshipsByIds",
+			"unwind $ids as id match ()-[r]->() where id(r)=id" + RETURN_RELATIONSHIP, RELATIONSHIP_COLUMNS);
+
+	static final Statement ALL_NODES = allNodes(Hydration.NONE);
+	static final Statement ALL_RELATIONSHIPS = allRelationships(Hydration.NONE);
+	// answered from the count store, without a scan
+	static final Statement NODE_COUNT = new Statement("Transaction.getAllNodes",
+			"match (n) return count(n) as count", "count");
+	static final Statement RELATIONSHIP_COUNT = new Statement("Transaction.getAllRelationships",
+			"match ()-[r]->() return count(r) as count", "count");
+	static final Statement MAX_NODE_ID = new Statement("Transaction.getAllNodes",
+			"match (n) return max(id(n)) as id", "id");
+	static final Statement MAX_RELATIONSHIP_ID = new Statement("Transaction.getAllRelationships",
+			"match ()-[r]->() return max(id(r)) as id", "id");
+	static final Statement DELETE_RELATIONSHIPS = new Statement("GraphDatabaseService.delete",
+			"match ()-[r]->() with r limit $batch delete r");
+
+	static final Statement BATCH_SET_NODE_PROPERTIES = new Statement("WriteBehind.setNodeProperties",
+			"unwind $batch as row match (n) where id(n)=row.id set n += row.props");
+	static final Statement BATCH_SET_RELATIONSHIP_PROPERTIES = new Statement("WriteBehind.setRelationshipProperties",
+			"unwind $batch as row match ()-[r]->() where id(r)=row.id set r += row.props");
+	static final Statement BATCH_DELETE_NODES = new Statement("WriteBehind.deleteNodes",
+			"unwind $ids as id match (n) where id(n)=id delete n");
+	static final Statement BATCH_DELETE_RELATIONSHIPS = new Statement("WriteBehind.deleteRelationships",
+			"unwind $ids as id match ()-[r]->() where id(r)=id delete r");
+
+	private Statements() {
+	}
+
+	/**
+	 * Quotes a label, relationship type or property key as a Cypher identifier.
+	 */
+	static String escape(String name) {
+		return '`' + name.replace("`", "``") + '`';
+	}
+
+	static Statement createNode(Label... labels) {
+		String key = key(labels);
+		Statement statement = createNode.get(key, "");
+		if (statement == null) {
+			statement = createNode.put(key, "", new Statement("Transaction.createNode",
+					"create (n" + labelPattern(labels) + ") return id(n) as id", "id"));
+		}
+		return statement;
+	}
+
+	static Statement createNodes(Label... labels) {
+		String key = key(labels);
+		Statement statement = createNodes.get(key, "");
+		if (statement == null) {
+			statement = createNodes.put(key, "", new Statement("Transaction.createNodeIds",
+					"unwind $batch as props create (n" + labelPattern(labels) + ") set n = props return id(n) as id",
+					"id"));
+		}
+		return statement;
+	}
+
+	static Statement addLabel(String label) {
+		Statement statement = addLabel.get(label, "");
+		if (statement == null) {
+			statement = addLabel.put(label, "",
+					new Statement("Node.addLabel", MATCH_NODE + " set n:" + escape(label)));
+		}
+		return statement;
+	}
+
+	static Statement removeLabel(String label) {
+		Statement statement = removeLabel.get(label, "");
+		if (statement == null) {
+			statement = removeLabel.put(label, "",
+					new Statement("Node.removeLabel", MATCH_NODE + " remove n:" + escape(label)));
+		}
+		return statement;
+	}
+
+	static Statement batchAddLabel(String label) {
+		Statement statement = batchAddLabel.get(label, "");
+		if (statement == null) {
+			statement = batchAddLabel.put(label, "", new Statement("WriteBehind.addLabel",
+					"unwind $ids as id match (n) where id(n)=id set n:" + escape(label)));
+		}
+		return statement;
+	}
+
+	static Statement batchRemoveLabel(String label) {
+		Statement statement = batchRemoveLabel.get(label, "");
+		if (statement == null) {
+			statement = batchRemoveLabel.put(label, "", new Statement("WriteBehind.removeLabel",
+					"unwind $ids as id match (n) where id(n)=id remove n:" + escape(label)));
+		}
+		return statement;
+	}
+
+	static Statement createRelationship(RelationshipType type) {
+		Statement statement = createRelationship.get(type.name(), "");
+		if (statement == null) {
+			statement = createRelationship.put(type.name(), "", new Statement("Node.createRelationshipTo",
+					"match (n), (m) where id(n)=$id and id(m)=$other create (n)-[r:" + escape(type.name())
+							+ "]->(m) return id(r) as id",
+					"id"));
+		}
+		return statement;
+	}
+
+	/**
+	 * Reads the outgoing, incoming and total degrees of a node for each of the
+	 * given relationship types, as one list. Sizes of single typed patterns
+	 * are read from the degrees the server stores with the node instead of
+	 * expanding its relationships.
+	 */
+	static Statement adjacency(String... types) {
+		String key = key(types);
+		Statement statement = adjacency.get(key, "");
+		if (statement == null) {
+			StringBuilder strBuilder = new StringBuilder(MATCH_NODE).append(" return [");
+			for (int i = 0; i < types.length; i++) {
+				RelationshipType type = RelationshipType.withName(types[i]);
+				strBuilder.append(i == 0 ? "" : ", ").append("size(").append(pattern(Direction.OUTGOING, "", type))
+						.append("), size(").append(pattern(Direction.INCOMING, "", type)).append("), size(")
+						.append(pattern(Direction.BOTH, "", type)).append(')');
+			}
+			strBuilder.append("] as degrees, size(").append(pattern(Direction.BOTH, "")).append(") as degree");
+			statement = adjacency.put(key, "",
+					new Statement("Node.getDegree", strBuilder.toString(), "degrees", "degree"));
+		}
+		return statement;
+	}
+
+	/**
+	 * Counts the nodes of each label, read from the counts the server keeps
+	 * rather than by scanning. Each row is the index of a label and its count.
+	 */
+	static Statement labelCounts(String... labels) {
+		String key = key(labels);
+		Statement statement = labelCounts.get(key, "");
+		if (statement == null) {
+			StringBuilder strBuilder = new StringBuilder();
+			for (int i = 0; i < labels.length; i++) {
+				strBuilder.append(i == 0 ? "" : " union all ").append("match (n:").append(escape(labels[i]))
+						.append(") return ").append(i).append(" as index, count(n) as count");
+			}
+			statement = labelCounts.put(key, "",
+					new Statement("Transaction.getAllLabelsInUse", strBuilder.toString(), "index", "count"));
+		}
+		return statement;
+	}
+
+	/**
+	 * Like {@link #labelCounts(String...)} for relationship types.
+	 */
+	static Statement relationshipTypeCounts(String... types) {
+		String key = key(types);
+		Statement statement = relationshipTypeCounts.get(key, "");
+		if (statement == null) {
+			StringBuilder strBuilder = new StringBuilder();
+			for (int i = 0; i < types.length; i++) {
+				strBuilder.append(i == 0 ? "" : " union all ").append("match ()-[r:").append(escape(types[i]))
+						.append("]->() return ").append(i).append(" as index, count(r) as count");
+			}
+			statement = relationshipTypeCounts.put(key, "", new Statement("Transaction.getAllRelationshipTypesInUse",
+					strBuilder.toString(), "index", "count"));
+		}
+		return statement;
+	}
+
+	static Statement relationships(Direction direction, RelationshipType... types) {
+		return relationships(Hydration.NONE, direction, types);
+	}
+
+	static Statement relationships(Hydration hydration, Direction direction, RelationshipType... types) {
+		ShapeCache shapes = shapes(relationships, hydration);
+		String key = key(types);
+		Statement statement = shapes.get(direction.name(), key);
+		if (statement == null) {
+			statement = shapes.put(direction.name(), key,
+					new Statement("Node.getRelationships", "match " + pattern(direction, "r", types)
+							+ " where id(n)=$id" + returnRelationship(hydration), relationshipColumns(hydration)));
+		}
+		return statement;
+	}
+
+	/**
+	 * Expands a whole traversal frontier: the relationships of every node in
+	 * <code>$ids</code>, each with the id of the node it was expanded from.
+	 */
+	static Statement expand(Direction direction, RelationshipType... types) {
+		String key = key(types);
+		Statement statement = expand.get(direction.name(), key);
+		if (statement == null) {
+			String[] columns = new String[RELATIONSHIP_COLUMNS.length + 1];
+			columns[0] = "source";
+			System.arraycopy(RELATIONSHIP_COLUMNS, 0, columns, 1, RELATIONSHIP_COLUMNS.length);
+			statement = expand.put(direction.name(), key,
+					new Statement("Traverser.expand", "unwind $ids as source match " + pattern(direction, "r", types)
+							+ " where id(n)=source" + RETURN_RELATIONSHIP.replace(" return ", " return source, "),
+							columns));
+		}
+		return statement;
+	}
+
+	static Statement allNodes(Hydration hydration) {
+		Statement statement = allNodes.get(hydration.key(), "");
+		if (statement == null) {
+			statement = allNodes.put(hydration.key(), "", new Statement("Transaction.getAllNodes",
+					"match (n)" + returnNode(hydration), nodeColumns(hydration)));
+		}
+		return statement;
+	}
+
+	static Statement allRelationships(Hydration hydration) {
+		Statement statement = allRelationships.get(hydration.key(), "");
+		if (statement == null) {
+			statement = allRelationships.put(hydration.key(), "", new Statement("Transaction.getAllRelationships",
+					"match ()-[r]->()" + returnRelationship(hydration), relationshipColumns(hydration)));
+		}
+		return statement;
+	}
+
+	/**
+	 * Matches the nodes with ids from <code>$from</code> included to
+	 * <code>$to</code> excluded, by seeking each id, as the planner scans all
+	 * nodes for a range predicate on ids.
+	 */
+	static Statement nodeRange(Hydration hydration) {
+		Statement statement = allNodes.get(hydration.key(), "range");
+		if (statement == null) {
+			statement = allNodes.put(hydration.key(), "range", new Statement("Transaction.getAllNodes",
+					"unwind range($from, $to - 1) as i match (n) where id(n)=i" + returnNode(hydration),
+					nodeColumns(hydration)));
+		}
+		return statement;
+	}
+
+	static Statement relationshipRange(Hydration hydration) {
+		Statement statement = allRelationships.get(hydration.key(), "range");
+		if (statement == null) {
+			statement = allRelationships.put(hydration.key(), "range", new Statement("Transaction.getAllRelationships",
+					"unwind range($from, $to - 1) as i match ()-[r]->() where id(r)=i"
+							+ returnRelationship(hydration),
+					relationshipColumns(hydration)));
+		}
+		return statement;
+	}
+
+	/**
+	 * Deletes the nodes with the ids in <code>$ids</code>.
+	 */
+	static Statement deleteNodesById(boolean detach) {
+		String shape = "ids" + (detach ? " detach" : "");
+		Statement statement = deleteNodes.get("", shape);
+		if (statement == null) {
+			statement = deleteNodes.put("", shape, new Statement("GraphDatabaseService.delete",
+					"unwind $ids as i match (n) where id(n)=i" + (detach ? " detach delete n" : " delete n")));
+		}
+		return statement;
+	}
+
+	/**
+	 * Deletes up to <code>$batch</code> nodes with the label, or any nodes if
+	 * it is <code>null</code>. The nodes deleted are gone from the scan, so
+	 * running it again deletes the next ones without reading past those.
+	 */
+	static Statement deleteNodes(Label label, boolean detach) {
+		String key = label != null ? label.name() : "";
+		String shape = "batch" + (detach ? " detach" : "");
+		Statement statement = deleteNodes.get(key, shape);
+		if (statement == null) {
+			statement = deleteNodes.put(key, shape, new Statement("GraphDatabaseService.delete",
+					"match (n" + (label != null ? ":" + escape(label.name()) : "") + ") with n limit $batch"
+							+ (detach ? " detach delete n" : " delete n")));
+		}
+		return statement;
+	}
+
+	/**
+	 * Creates a node for each row of <code>$batch</code>, a map of its
+	 * external key <code>k</code> and properties <code>p</code>, and returns
+	 * the keys with the ids.
+	 */
+	static Statement importNodes(Label... labels) {
+		String key = key(labels);
+		Statement statement = importNodes.get(key, "");
+		if (statement == null) {
+			statement = importNodes.put(key, "", new Statement("BulkImporter.importNodes",
+					"unwind $batch as row create (n" + labelPattern(labels)
+							+ ") set n = row.p return row.k as key, id(n) as id",
+					"key", "id"));
+		}
+		return statement;
+	}
+
+	/**
+	 * Creates a relationship for each row of <code>$batch</code>, a map of the
+	 * start id <code>s</code>, end id <code>e</code> and properties
+	 * <code>p</code>.
+	 */
+	static Statement importRelationships(RelationshipType type) {
+		Statement statement = importRelationships.get(type.name(), "");
+		if (statement == null) {
+			statement = importRelationships.put(type.name(), "", new Statement("BulkImporter.importRelationships",
+					"unwind $batch as row match (n) where id(n)=row.s match (m) where id(m)=row.e create (n)-[r:"
+							+ escape(type.name()) + "]->(m) set r = row.p"));
+		}
+		return statement;
+	}
+
+	/**
+	 * Matches nodes by label and property equality, with the keys written
+	 * into the query so the server can use its indexes. The values are the
+	 * parameters <code>$value1</code>, <code>$value2</code>, ... in the order
+	 * of the keys.
+	 */
+	static Statement findNodes(Label label, String... keys) {
+		return findNodes(Hydration.NONE, label, keys);
+	}
+
+	static Statement findNodes(Hydration hydration, Label label, String... keys) {
+		ShapeCache shapes = shapes(findNodes, hydration);
+		String key = key(keys);
+		Statement statement = shapes.get(label.name(), key);
+		if (statement == null) {
+			StringBuilder strBuilder = new StringBuilder("match (n:").append(escape(label.name())).append(')');
+			for (int i = 0; i < keys.length; i++) {
+				strBuilder.append(i == 0 ? " where n." : " and n.").append(escape(keys[i])).append("=$value")
+						.append(i + 1);
+			}
+			strBuilder.append(returnNode(hydration));
+			statement = shapes.put(label.name(), key,
+					new Statement("Transaction.findNodes", strBuilder.toString(), nodeColumns(hydration)));
+		}
+		return statement;
+	}
+
+	/**
+	 * Matches nodes by label and a string predicate on a property, with the
+	 * key written into the query so the server can seek a prefix or scan the
+	 * index of the property instead of the label. The template is the
+	 * parameter <code>$value1</code>.
+	 */
+	static Statement findNodes(Hydration hydration, Label label, String key, StringSearchMode searchMode) {
+		if (searchMode == StringSearchMode.EXACT) {
+			return findNodes(hydration, label, key);
+		}
+		ShapeCache shapes = shapes(searchNodes, hydration);
+		String second = key(searchMode.name(), key);
+		Statement statement = shapes.get(label.name(), second);
+		if (statement == null) {
+			statement = shapes.put(label.name(), second,
+					new Statement("Transaction.findNodes", "match (n:" + escape(label.name()) + ") where n."
+							+ escape(key) + ' ' + operator(searchMode) + " $value1" + returnNode(hydration),
+							nodeColumns(hydration)));
+		}
+		return statement;
+	}
+
+	private static String operator(StringSearchMode searchMode) {
+		switch (searchMode) {
+		case PREFIX:
+			return "starts with";
+		case SUFFIX:
+			return "ends with";
+		case CONTAINS:
+			return "contains";
+		default:
+			return "=";
+		}
+	}
+
+	private static String returnNode(Hydration hydration) {
+		if (!hydration.isEnabled()) {
+			return " return id(n) as id";
+		}
+		return " return id(n) as id, labels(n) as labels, " + projection("n", hydration) + " as properties";
+	}
+
+	private static String[] nodeColumns(Hydration hydration) {
+		return hydration.isEnabled() ? new String[] { "id", "labels", "properties" } : new String[] { "id" };
+	}
+
+	private static String returnRelationship(Hydration hydration) {
+		if (!hydration.isEnabled()) {
+			return RETURN_RELATIONSHIP;
+		}
+		return RETURN_RELATIONSHIP + ", " + projection("r", hydration) + " as properties";
+	}
+
+	private static String[] relationshipColumns(Hydration hydration) {
+		if (!hydration.isEnabled()) {
+			return RELATIONSHIP_COLUMNS;
+		}
+		String[] columns = Arrays.copyOf(RELATIONSHIP_COLUMNS, RELATIONSHIP_COLUMNS.length + 1);
+		columns[RELATIONSHIP_COLUMNS.length] = "properties";
+		return columns;
+	}
+
+	/**
+	 * A map projection returns the projected keys an entity does not have as
+	 * nulls, which the caches take as known to be absent.
+	 */
+	private static String projection(String variable, Hydration hydration) {
+		String[] keys = hydration.keys();
+		if (keys == null) {
+			return "properties(" + variable + ")";
+		}
+		if (keys.length == 0) {
+			return "{}";
+		}
+		StringBuilder strBuilder = new StringBuilder(variable).append(" {");
+		for (int i = 0; i < keys.length; i++) {
+			strBuilder.append(i == 0 ? "." : ", .").append(escape(keys[i]));
+		}
+		return strBuilder.append('}').toString();
+	}
+
+	private static ShapeCache shapes(ConcurrentMap<String, ShapeCache> caches, Hydration hydration) {
+		ShapeCache shapes = caches.get(hydration.key());
+		return shapes != null ? shapes : caches.computeIfAbsent(hydration.key(), k -> new ShapeCache());
+	}
+
+	private static String labelPattern(Label... labels) {
+		StringBuilder strBuilder = new StringBuilder();
+		for (Label label : labels) {
+			strBuilder.append(':').append(escape(label.name()));
+		}
+		return strBuilder.toString();
+	}
+
+	private static String pattern(Direction direction, String variable, RelationshipType... types) {
+		StringBuilder strBuilder = new StringBuilder(variable);
+		for (int i = 0; i < types.length; i++) {
+			strBuilder.append(i == 0 ? ":" : "|").append(escape(types[i].name()));
+		}
+		String relationship = strBuilder.length() > 0 ? "[" + strBuilder + "]" : "";
+		switch (direction) {
+		case BOTH:
+			return "(n)-" + relationship + "-()";
+		case INCOMING:
+			return "(n)<-" + relationship + "-()";
+		case OUTGOING:
+			return "(n)-" + relationship + "->()";
+		default:
+			throw new RuntimeException();
+		}
+	}
+
+	/*
+	 * Cache keys of shapes with several names. A single name is its own key,
+	 * so the common case does not allocate.
+	 */
+
+	private static String key(String... names) {
+		return names.length == 1 ? names[0] : String.join("\u0000", names);
+	}
+
+	private static String key(Label... labels) {
+		if (labels.length == 1) {
+			return labels[0].name();
+		}
+		String[] names = new String[labels.length];
+		for (int i = 0; i < labels.length; i++) {
+			names[i] = labels[i].name();
+		}
+		return key(names);
+	}
+
+	private static String key(RelationshipType... types) {
+		if (types.length == 1) {
+			return types[0].name();
+		}
+		String[] names = new String[types.length];
+		for (int i = 0; i < types.length; i++) {
+			names[i] = types[i].name();
+		}
+		return key(names);
+	}
+
+	/**
+	 * Statements of one shape, keyed by two names.
+	 */
+	private static final class ShapeCache {
+		private final ConcurrentMap<String, ConcurrentMap<String, Statement>> statements = new ConcurrentHashMap<>();
+
+		Statement get(String first, String second) {
+			ConcurrentMap<String, Statement> byFirst = statements.get(first);
+			return byFirst != null ? byFirst.get(second) : null;
+		}
+
+		Statement put(String first, String second, Statement statement) {
+			Statement previous = statements.computeIfAbsent(first, k -> new ConcurrentHashMap<>())
+					.putIfAbsent(second, statement);
+			return previous != null ? previous : statement;
+		}
+
+	}
+
+}
@@ -0,0 +1,114 @@
+package com.masterqiao.dasiy;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.RelationshipType;
+
+/**
+ * The labels, relationship types and property keys of a database, shared by
+ * the transactions of a {@link RemoteGraphDatabaseService}. The token sets are
+ * loaded on first use and loaded again once older than the refresh interval;
+ * the server never drops a token, so a refresh only adds the new ones. Local
+ * writes add the tokens they introduce right away. Token objects are interned,
+ * so decoding a name seen before does not allocate.
+ */
+class TokenRegistry {
+	static final Duration DEFAULT_REFRESH_INTERVAL = Duration.ofMinutes(1);
+
+	private final ConcurrentMap<String, Label> labels = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, RelationshipType> relationshipTypes = new ConcurrentHashMap<>();
+	private final Set<String> propertyKeys = ConcurrentHashMap.newKeySet();
+
+	private volatile long refreshInterval = DEFAULT_REFRESH_INTERVAL.toNanos();
+	private volatile boolean loaded = false;
+	private volatile long loadedAt;
+
+	Duration getRefreshInterval() {
+		return Duration.ofNanos(refreshInterval);
+	}
+
+	void setRefreshInterval(Duration refreshInterval) {
+		this.refreshInterval = refreshInterval.toNanos();
+	}
+
+	Label label(String name) {
+		Label label = labels.get(name);
+		if (label == null) {
+			label = labels.computeIfAbsent(name, Label::label);
+		}
+		return label;
+	}
+
+	RelationshipType relationshipType(String name) {
+		RelationshipType type = relationshipTypes.get(name);
+		if (type == null) {
+			type = relationshipTypes.computeIfAbsent(name, RelationshipType::withName);
+		}
+		return type;
+	}
+
+	void propertyKey(String key) {
+		if (!propertyKeys.contains(key)) {
+			propertyKeys.add(key);
+		}
+	}
+
+	void propertyKeys(Collection<String> keys) {
+		for (String key : keys) {
+			propertyKey(key);
+		}
+	}
+
+	Collection<Label> labels(RemoteTransaction tx) {
+		refresh(tx);
+		return Collections.unmodifiableCollection(labels.values());
+	}
+
+	Collection<RelationshipType> relationshipTypes(RemoteTransaction tx) {
+		refresh(tx);
+		return Collections.unmodifiableCollection(relationshipTypes.values());
+	}
+
+	String[] relationshipTypeNames(RemoteTransaction tx) {
+		refresh(tx);
+		return relationshipTypes.keySet().toArray(new String[0]);
+	}
+
+	/**
+	 * Loads the relationship types with the given transaction whether or not
+	 * they are stale, for reads that found a type created by another client
+	 * since the last refresh.
+	 */
+	String[] loadRelationshipTypeNames(RemoteTransaction tx) {
+		tx.run(Statements.RELATIONSHIP_TYPES).forEachRemaining(rec -> relationshipType(rec.get(0).asString()));
+		return relationshipTypes.keySet().toArray(new String[0]);
+	}
+
+	Collection<String> propertyKeys(RemoteTransaction tx) {
+		refresh(tx);
+		return Collections.unmodifiableCollection(propertyKeys);
+	}
+
+	/**
+	 * Loads the token sets with the given transaction if they are stale.
+	 * Concurrent refreshes are harmless, as they only add tokens.
+	 */
+	private void refresh(RemoteTransaction tx) {
+		long now = System.nanoTime();
+		if (loaded && now - loadedAt < refreshInterval) {
+			return;
+		}
+		tx.run(Statements.LABELS).forEachRemaining(rec -> label(rec.get(0).asString()));
+		tx.run(Statements.RELATIONSHIP_TYPES).forEachRemaining(rec -> relationshipType(rec.get(0).asString()));
+		tx.run(Statements.PROPERTY_KEYS).forEachRemaining(rec -> propertyKey(rec.get(0).asString()));
+		loadedAt = now;
+		loaded = true;
+	}
+
+}
@@ -0,0 +1,386 @@
+package com.masterqiao.dasiy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Values;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.PathExpander;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.traversal.BranchState;
+import org.neo4j.graphdb.traversal.Evaluation;
+import org.neo4j.graphdb.traversal.Evaluator;
+import org.neo4j.graphdb.traversal.InitialBranchState;
+import org.neo4j.graphdb.traversal.PathEvaluator;
+import org.neo4j.graphdb.traversal.Uniqueness;
+
+import com.masterqiao.dasiy.RemoteTraversalDescription.Expansion;
+
+/**
+ * The frontier of a level-wise traversal from some start nodes. Each call of
+ * {@link #next()} visits one more depth, expanding the whole frontier with one
+ * query per {@value RemoteTransaction#BATCH_SIZE} nodes, and returns the paths
+ * of that depth the evaluators include.
+ */
+class TraversalFrontier {
+	private static final int DEFAULT_RECENT_SIZE = 1000;
+
+	private final RemoteTraversalDescription description;
+	private final RemoteTransaction tx;
+	private final Iterable<Node> startNodes;
+	private final UniquenessFilter uniqueness;
+
+	private List<Branch> branches = null;
+	private int depth = -1;
+	private int relationshipsTraversed = 0;
+	private int expansionQueries = 0;
+
+	TraversalFrontier(RemoteTraversalDescription description, Iterable<Node> startNodes) {
+		this.description = description;
+		this.tx = description.transaction();
+		this.startNodes = startNodes;
+		this.uniqueness = new UniquenessFilter(description.uniqueness(), description.uniquenessParameter());
+	}
+
+	/**
+	 * Returns true if no path is left to expand.
+	 */
+	boolean isExhausted() {
+		return branches != null && branches.isEmpty();
+	}
+
+	/**
+	 * Returns the number of paths to expand at the next call of
+	 * {@link #next()}.
+	 */
+	int size() {
+		return branches != null ? branches.size() : 0;
+	}
+
+	/**
+	 * Returns the depth of the paths returned by the last call of
+	 * {@link #next()}.
+	 */
+	int depth() {
+		return depth;
+	}
+
+	int getNumberOfRelationshipsTraversed() {
+		return relationshipsTraversed;
+	}
+
+	int getNumberOfExpansionQueries() {
+		return expansionQueries;
+	}
+
+	/**
+	 * Visits the next depth, the start nodes first.
+	 */
+	List<RemotePath> next() {
+		List<RemotePath> included = new ArrayList<>();
+		if (isExhausted()) {
+			return included;
+		}
+		branches = branches == null ? start(included) : expand(branches, included);
+		depth++;
+		return included;
+	}
+
+	/**
+	 * Stops the traversal.
+	 */
+	void close() {
+		branches = Collections.emptyList();
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private List<Branch> start(List<RemotePath> included) {
+		List<Branch> next = new ArrayList<>();
+		InitialBranchState initialState = description.initialState();
+		for (Node node : startNodes) {
+			RemotePath path = new RemotePath(tx.node(node.getId()));
+			visit(new Branch(path, initialState != null ? initialState.initialState(path) : null), included, next);
+		}
+		return next;
+	}
+
+	private List<Branch> expand(List<Branch> branches, List<RemotePath> included) {
+		uniqueness.nextLevel();
+		List<Branch> next = new ArrayList<>();
+		if (description.expander() != null) {
+			for (Branch branch : branches) {
+				expandClientSide(branch, included, next);
+			}
+			return next;
+		}
+		Map<Long, List<Relationship>> relationships = expandServerSide(branches);
+		for (Branch branch : branches) {
+			List<Relationship> list = relationships.get(branch.nodeId());
+			if (list == null) {
+				continue;
+			}
+			for (Relationship relationship : list) {
+				Node otherNode = relationship.getOtherNode(branch.path.endNode());
+				visit(new Branch(new RemotePath(branch.path, relationship, otherNode), branch.state), included, next);
+			}
+		}
+		return next;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void expandClientSide(Branch branch, List<RemotePath> included, List<Branch> next) {
+		PathExpander expander = description.expander();
+		Iterable<Relationship> relationships = expander.expand(branch.path, branch);
+		for (Relationship relationship : relationships) {
+			relationshipsTraversed++;
+			Node otherNode = tx.node(relationship.getOtherNode(branch.path.endNode()).getId());
+			visit(new Branch(new RemotePath(branch.path, relationship, otherNode), branch.state), included, next);
+		}
+	}
+
+	/**
+	 * Fetches the relationships of all frontier nodes, by node id.
+	 */
+	private Map<Long, List<Relationship>> expandServerSide(List<Branch> branches) {
+		LongHashSet seen = new LongHashSet(branches.size());
+		long[] ids = new long[branches.size()];
+		int count = 0;
+		for (Branch branch : branches) {
+			if (seen.add(branch.nodeId())) {
+				ids[count++] = branch.nodeId();
+			}
+		}
+
+		List<Expansion> expansions = description.expansions();
+		Direction direction = direction(expansions);
+		Statement statement = Statements.expand(direction, types(expansions));
+		int sourceColumn = statement.column("source");
+		int idColumn = statement.column("id");
+		int startIdColumn = statement.column("startId");
+		int endIdColumn = statement.column("endId");
+		int typeColumn = statement.column("type");
+
+		Map<Long, List<Relationship>> relationships = new HashMap<>();
+		LongHashSet loops = new LongHashSet();
+		for (int from = 0; from < count; from += RemoteTransaction.BATCH_SIZE) {
+			long[] batch = Arrays.copyOfRange(ids, from, Math.min(from + RemoteTransaction.BATCH_SIZE, count));
+			Result ret = tx.run(statement, Values.parameters("ids", batch));
+			expansionQueries++;
+			while (ret.hasNext()) {
+				Record record = ret.next();
+				long source = record.get(sourceColumn).asLong();
+				long id = record.get(idColumn).asLong();
+				long startId = record.get(startIdColumn).asLong();
+				long endId = record.get(endIdColumn).asLong();
+				RelationshipType type = tx.tokens().relationshipType(record.get(typeColumn).asString());
+				// an undirected pattern can match a loop once per direction
+				if (startId == endId && !loops.add(id)) {
+					continue;
+				}
+				if (!matches(expansions, source, startId, endId, type)) {
+					continue;
+				}
+				relationshipsTraversed++;
+				relationships.computeIfAbsent(source, k -> new ArrayList<>())
+						.add(tx.relationship(id, startId, endId, type));
+			}
+		}
+		return relationships;
+	}
+
+	private void visit(Branch branch, List<RemotePath> included, List<Branch> next) {
+		if (!uniqueness.admit(branch.path)) {
+			return;
+		}
+		Evaluation evaluation = evaluate(branch);
+		if (evaluation.includes()) {
+			included.add(branch.path);
+		}
+		if (evaluation.continues()) {
+			next.add(branch);
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Evaluation evaluate(Branch branch) {
+		boolean includes = true;
+		boolean continues = true;
+		for (Evaluator evaluator : description.evaluators()) {
+			Evaluation evaluation = evaluator instanceof PathEvaluator
+					? ((PathEvaluator) evaluator).evaluate(branch.path, branch)
+					: evaluator.evaluate(branch.path);
+			includes &= evaluation.includes();
+			continues &= evaluation.continues();
+			if (!includes && !continues) {
+				break;
+			}
+		}
+		return Evaluation.of(includes, continues);
+	}
+
+	/**
+	 * Returns the direction of the expansion pattern: the one direction all
+	 * expansions share, otherwise both.
+	 */
+	private static Direction direction(List<Expansion> expansions) {
+		if (expansions.isEmpty()) {
+			return Direction.BOTH;
+		}
+		Direction direction = expansions.get(0).direction;
+		for (Expansion expansion : expansions) {
+			if (expansion.direction != direction) {
+				return Direction.BOTH;
+			}
+		}
+		return direction;
+	}
+
+	private static RelationshipType[] types(List<Expansion> expansions) {
+		Map<String, RelationshipType> types = new LinkedHashMap<>();
+		for (Expansion expansion : expansions) {
+			types.putIfAbsent(expansion.type.name(), expansion.type);
+		}
+		return types.values().toArray(new RelationshipType[0]);
+	}
+
+	/**
+	 * Checks a relationship of the expansion pattern against the expansions,
+	 * as the pattern may be wider than each of them.
+	 */
+	private static boolean matches(List<Expansion> expansions, long source, long startId, long endId,
+			RelationshipType type) {
+		if (expansions.isEmpty()) {
+			return true;
+		}
+		for (Expansion expansion : expansions) {
+			if (!expansion.type.name().equals(type.name())) {
+				continue;
+			}
+			switch (expansion.direction) {
+			case OUTGOING:
+				if (startId == source) {
+					return true;
+				}
+				break;
+			case INCOMING:
+				if (endId == source) {
+					return true;
+				}
+				break;
+			default:
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A path being traversed, with the branch state custom expanders and path
+	 * evaluators see.
+	 */
+	private static class Branch implements BranchState<Object> {
+		final RemotePath path;
+		Object state;
+
+		Branch(RemotePath path, Object state) {
+			this.path = path;
+			this.state = state;
+		}
+
+		long nodeId() {
+			return path.endNode().getId();
+		}
+
+		@Override
+		public Object getState() {
+			return state;
+		}
+
+		@Override
+		public void setState(Object state) {
+			this.state = state;
+		}
+
+	}
+
+	/**
+	 * Applies a {@link Uniqueness} to the paths of a traversal.
+	 */
+	private static class UniquenessFilter {
+		private final Uniqueness uniqueness;
+		private final int recentSize;
+		private final LongHashSet visited = new LongHashSet();
+		private Map<Long, Boolean> recent;
+
+		UniquenessFilter(Uniqueness uniqueness, Object parameter) {
+			this.uniqueness = uniqueness;
+			this.recentSize = parameter instanceof Number ? ((Number) parameter).intValue() : DEFAULT_RECENT_SIZE;
+		}
+
+		void nextLevel() {
+			if (uniqueness == Uniqueness.NODE_LEVEL || uniqueness == Uniqueness.RELATIONSHIP_LEVEL) {
+				visited.clear();
+			}
+		}
+
+		boolean admit(RemotePath path) {
+			Relationship relationship = path.lastRelationship();
+			switch (uniqueness) {
+			case NODE_GLOBAL:
+			case NODE_LEVEL:
+				return visited.add(path.endNode().getId());
+			case NODE_PATH:
+				for (RemotePath p = path.parent(); p != null; p = p.parent()) {
+					if (p.endNode().getId() == path.endNode().getId()) {
+						return false;
+					}
+				}
+				return true;
+			case NODE_RECENT:
+				return recent(path.endNode().getId());
+			case RELATIONSHIP_GLOBAL:
+			case RELATIONSHIP_LEVEL:
+				return relationship == null || visited.add(relationship.getId());
+			case RELATIONSHIP_PATH:
+				if (relationship == null) {
+					return true;
+				}
+				for (RemotePath p = path.parent(); p != null && p.lastRelationship() != null; p = p.parent()) {
+					if (p.lastRelationship().getId() == relationship.getId()) {
+						return false;
+					}
+				}
+				return true;
+			case RELATIONSHIP_RECENT:
+				return relationship == null || recent(relationship.getId());
+			default:
+				return true;
+			}
+		}
+
+		private boolean recent(long id) {
+			if (recent == null) {
+				recent = new LinkedHashMap<Long, Boolean>(16, 0.75f, true) {
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+						return size() > recentSize;
+					}
+				};
+			}
+			return recent.put(id, Boolean.TRUE) == null;
+		}
+
+	}
+
+}
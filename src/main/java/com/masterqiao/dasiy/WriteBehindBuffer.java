@@ -0,0 +1,161 @@
+package com.masterqiao.dasiy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.neo4j.driver.Values;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Mutations queued by a {@link RemoteTransaction} in write-behind mode.
+ * Repeated writes to the same entity and key are coalesced, and a flush sends
+ * one UNWIND statement per kind of operation (and per label for label
+ * changes, as labels cannot be parameterized).
+ */
+class WriteBehindBuffer {
+	private static final Logger logger = LoggerFactory.getLogger(WriteBehindBuffer.class);
+
+	private final RemoteTransaction tx;
+	private int batchSize;
+	private int pending = 0;
+
+	private final Map<Long, Map<String, Object>> nodeProperties = new LinkedHashMap<>();
+	private final Map<Long, Map<String, Object>> relationshipProperties = new LinkedHashMap<>();
+	private final Map<String, Set<Long>> addedLabels = new LinkedHashMap<>();
+	private final Map<String, Set<Long>> removedLabels = new LinkedHashMap<>();
+	private final Set<Long> deletedRelationships = new LinkedHashSet<>();
+	private final Set<Long> deletedNodes = new LinkedHashSet<>();
+
+	WriteBehindBuffer(RemoteTransaction tx, int batchSize) {
+		this.tx = tx;
+		this.batchSize = batchSize;
+	}
+
+	void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	boolean isEmpty() {
+		return pending == 0;
+	}
+
+	/**
+	 * A null value removes the property, as it does with <code>set n += $props</code>.
+	 */
+	void setNodeProperty(long id, String key, Object value) {
+		nodeProperties.computeIfAbsent(id, k -> new HashMap<>()).put(key, value);
+		queued();
+	}
+
+	/**
+	 * Returns the property writes queued for a node, a null value for a
+	 * removal, or null if there are none.
+	 */
+	Map<String, Object> nodeProperties(long id) {
+		return nodeProperties.get(id);
+	}
+
+	Map<String, Object> relationshipProperties(long id) {
+		return relationshipProperties.get(id);
+	}
+
+	void setRelationshipProperty(long id, String key, Object value) {
+		relationshipProperties.computeIfAbsent(id, k -> new HashMap<>()).put(key, value);
+		queued();
+	}
+
+	void addLabel(long id, String label) {
+		Set<Long> removed = removedLabels.get(label);
+		if (removed != null) {
+			removed.remove(id);
+		}
+		addedLabels.computeIfAbsent(label, k -> new LinkedHashSet<>()).add(id);
+		queued();
+	}
+
+	void removeLabel(long id, String label) {
+		Set<Long> added = addedLabels.get(label);
+		if (added != null) {
+			added.remove(id);
+		}
+		removedLabels.computeIfAbsent(label, k -> new LinkedHashSet<>()).add(id);
+		queued();
+	}
+
+	void deleteNode(long id) {
+		nodeProperties.remove(id);
+		addedLabels.values().forEach(ids -> ids.remove(id));
+		removedLabels.values().forEach(ids -> ids.remove(id));
+		deletedNodes.add(id);
+		queued();
+	}
+
+	void deleteRelationship(long id) {
+		relationshipProperties.remove(id);
+		deletedRelationships.add(id);
+		queued();
+	}
+
+	private void queued() {
+		pending++;
+		if (pending >= batchSize) {
+			flush();
+		}
+	}
+
+	/**
+	 * Sends all queued mutations. Relationships are deleted before nodes, so a
+	 * node and its relationships deleted in the same batch go away cleanly.
+	 */
+	void flush() {
+		if (pending == 0) {
+			return;
+		}
+		logger.debug("flush() " + pending + " queued mutations");
+		runProperties(Statements.BATCH_SET_RELATIONSHIP_PROPERTIES, relationshipProperties);
+		runProperties(Statements.BATCH_SET_NODE_PROPERTIES, nodeProperties);
+		addedLabels.forEach((label, ids) -> runIds(Statements.batchAddLabel(label), ids));
+		removedLabels.forEach((label, ids) -> runIds(Statements.batchRemoveLabel(label), ids));
+		runIds(Statements.BATCH_DELETE_RELATIONSHIPS, deletedRelationships);
+		runIds(Statements.BATCH_DELETE_NODES, deletedNodes);
+		clear();
+	}
+
+	void clear() {
+		nodeProperties.clear();
+		relationshipProperties.clear();
+		addedLabels.clear();
+		removedLabels.clear();
+		deletedRelationships.clear();
+		deletedNodes.clear();
+		pending = 0;
+	}
+
+	private void runProperties(Statement statement, Map<Long, Map<String, Object>> properties) {
+		if (properties.isEmpty()) {
+			return;
+		}
+		List<Map<String, Object>> batch = new ArrayList<>(properties.size());
+		properties.forEach((id, props) -> {
+			Map<String, Object> row = new HashMap<>();
+			row.put("id", id);
+			row.put("props", props);
+			batch.add(row);
+		});
+		tx.send(statement, Values.parameters("batch", batch)).consume();
+	}
+
+	private void runIds(Statement statement, Set<Long> ids) {
+		if (ids.isEmpty()) {
+			return;
+		}
+		tx.send(statement, Values.parameters("ids", new ArrayList<>(ids))).consume();
+	}
+
+}
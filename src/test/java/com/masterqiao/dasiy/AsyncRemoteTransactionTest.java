@@ -0,0 +1,120 @@
+package com.masterqiao.dasiy;
+
+import static com.masterqiao.dasiy.Labels.LinkTypes.T1;
+import static com.masterqiao.dasiy.Labels.NodeLabels.L1;
+import static com.masterqiao.dasiy.Labels.NodeLabels.L2;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.Transaction;
+
+class AsyncRemoteTransactionTest {
+
+	private static RemoteGraphDatabaseService graphDb;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+		graphDb = DatabaseConfig.getRemoteGraphDatabaseService();
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		tearDown();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		try (Transaction tx = graphDb.beginTx()) {
+			tx.getAllRelationships().forEach(Relationship::delete);
+			tx.getAllNodes().forEach(Node::delete);
+			tx.commit();
+		}
+	}
+
+	private static AsyncRemoteTransaction beginTx() {
+		return graphDb.beginTxAsync().toCompletableFuture().join();
+	}
+
+	@Test
+	void testCreateNode() {
+		AsyncRemoteTransaction tx = beginTx();
+		long id = tx.createNode(L1, L2).toCompletableFuture().join();
+		tx.setNodeProperty(id, "name", "n1");
+		assertEquals("n1", tx.getNodeProperty(id, "name").toCompletableFuture().join());
+		assertNull(tx.getNodeProperty(id, "age").toCompletableFuture().join());
+		assertEquals(List.of(L1.name(), L2.name()), labelNames(tx, id));
+		tx.commit().toCompletableFuture().join();
+
+		try (Transaction syncTx = graphDb.beginTx()) {
+			assertEquals("n1", syncTx.getNodeById(id).getProperty("name"));
+		}
+	}
+
+	private static List<String> labelNames(AsyncRemoteTransaction tx, long id) {
+		List<String> names = new ArrayList<>();
+		tx.getLabels(id).toCompletableFuture().join().forEach(label -> names.add(label.name()));
+		return names;
+	}
+
+	@Test
+	void testPipelinedReads() {
+		AsyncRemoteTransaction tx = beginTx();
+		List<CompletableFuture<Long>> creates = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			creates.add(tx.createNode(L1).toCompletableFuture());
+		}
+		List<CompletableFuture<Object>> reads = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			long id = creates.get(i).join();
+			tx.setNodeProperty(id, "i", i);
+			reads.add(tx.getNodeProperty(id, "i").toCompletableFuture());
+		}
+		for (int i = 0; i < 100; i++) {
+			assertEquals((long) i, reads.get(i).join());
+		}
+		assertEquals(List.of(creates.get(1).join()), tx.findNodeIds(L1, "i", 1).toCompletableFuture().join());
+		tx.rollback().toCompletableFuture().join();
+	}
+
+	@Test
+	void testRelationships() {
+		AsyncRemoteTransaction tx = beginTx();
+		long n1 = tx.createNode(L1).toCompletableFuture().join();
+		long n2 = tx.createNode(L2).toCompletableFuture().join();
+		long r1 = tx.createRelationship(n1, n2, T1).toCompletableFuture().join();
+		tx.setRelationshipProperty(r1, "weight", 2);
+		assertEquals(List.of(r1), tx.getRelationshipIds(n1, Direction.OUTGOING, T1).toCompletableFuture().join());
+		assertTrue(tx.getRelationshipIds(n1, Direction.INCOMING).toCompletableFuture().join().isEmpty());
+		assertEquals(2L, tx.getRelationshipProperties(r1).toCompletableFuture().join().get("weight"));
+		tx.deleteRelationship(r1);
+		tx.deleteNode(n2);
+		assertFalse(tx.nodeExists(n2).toCompletableFuture().join());
+		tx.commit().toCompletableFuture().join();
+	}
+
+	@Test
+	void testNotFound() {
+		AsyncRemoteTransaction tx = beginTx();
+		CompletionException e = assertThrows(CompletionException.class,
+				() -> tx.getNodeProperties(-1).toCompletableFuture().join());
+		assertTrue(e.getCause() instanceof NotFoundException);
+		tx.rollback().toCompletableFuture().join();
+	}
+
+}
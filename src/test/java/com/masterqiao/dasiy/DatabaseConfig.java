@@ -9,6 +9,7 @@ import org.neo4j.configuration.helpers.SocketAddress;
 import org.neo4j.dbms.api.DatabaseManagementService;
 import org.neo4j.dbms.api.DatabaseManagementServiceBuilder;
 import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.Config;
 import org.neo4j.driver.Driver;
 import org.neo4j.driver.GraphDatabase;
 import org.neo4j.graphdb.GraphDatabaseService;
@@ -18,6 +19,10 @@ public class DatabaseConfig {
 	private static final Path databaseDirectory = Path.of("database");
 
 	private static void registerShutdownHook() {
+		if (shutdownHookRegistered) {
+			return;
+		}
+		shutdownHookRegistered = true;
 		Runtime.getRuntime().addShutdownHook(new Thread() {
 			@Override
 			public void run() {
@@ -34,6 +39,8 @@ public class DatabaseConfig {
 	private static DatabaseManagementService dbms = null;
 	private static Driver driver = null;
 	private static GraphDatabaseService graphDatabaseService = null;
+	private static RemoteGraphDatabaseService remoteGraphDatabaseService = null;
+	private static boolean shutdownHookRegistered = false;
 
 	private static final boolean useLocalDatabase = true;
 	private static final boolean useNativeApi = true;
@@ -44,26 +51,55 @@ public class DatabaseConfig {
 		}
 
 		if (useLocalDatabase) {
-			if (dbms == null) {
-				FileUtils.deleteDirectory(databaseDirectory);
-				dbms = new DatabaseManagementServiceBuilder(databaseDirectory).setConfig(BoltConnector.enabled, true)
-						.setConfig(BoltConnector.listen_address, new SocketAddress("localhost", 7677)).build();
-			}
+			startLocalDatabase();
 			if (useNativeApi) {
 				graphDatabaseService = dbms.database(GraphDatabaseSettings.DEFAULT_DATABASE_NAME);
 			} else {
-				driver = GraphDatabase.driver("bolt://localhost:7677");
-				graphDatabaseService = new RemoteGraphDatabaseService(driver);
+				graphDatabaseService = getRemoteGraphDatabaseService();
 			}
 		} else {
-			String username = "neo4j";
-			String password = "xxxxxx";
-			driver = GraphDatabase.driver("bolt://localhost:7687", AuthTokens.basic(username, password));
-			graphDatabaseService = new RemoteGraphDatabaseService(driver);
+			graphDatabaseService = getRemoteGraphDatabaseService();
 		}
 
 		registerShutdownHook();
 		return graphDatabaseService;
 	}
 
+	/**
+	 * Always returns the driver based service, for tests of features that only
+	 * exist in the Remote wrapper.
+	 */
+	public static RemoteGraphDatabaseService getRemoteGraphDatabaseService() throws IOException {
+		if (remoteGraphDatabaseService != null) {
+			return remoteGraphDatabaseService;
+		}
+
+		driver = newDriver(Config.defaultConfig());
+		remoteGraphDatabaseService = new RemoteGraphDatabaseService(driver);
+		return remoteGraphDatabaseService;
+	}
+
+	/**
+	 * Returns a new driver to the same database, for clients that size the
+	 * connection pool or read the driver metrics. The caller closes it.
+	 */
+	public static Driver newDriver(Config config) throws IOException {
+		registerShutdownHook();
+		if (useLocalDatabase) {
+			startLocalDatabase();
+			return GraphDatabase.driver("bolt://localhost:7677", config);
+		}
+		String username = "neo4j";
+		String password = "xxxxxx";
+		return GraphDatabase.driver("bolt://localhost:7687", AuthTokens.basic(username, password), config);
+	}
+
+	private static void startLocalDatabase() throws IOException {
+		if (dbms == null) {
+			FileUtils.deleteDirectory(databaseDirectory);
+			dbms = new DatabaseManagementServiceBuilder(databaseDirectory).setConfig(BoltConnector.enabled, true)
+					.setConfig(BoltConnector.listen_address, new SocketAddress("localhost", 7677)).build();
+		}
+	}
+
 }
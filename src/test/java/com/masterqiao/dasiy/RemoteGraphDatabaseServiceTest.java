@@ -0,0 +1,285 @@
+package com.masterqiao.dasiy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.QueryExecutionException;
+import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.Transaction;
+
+class RemoteGraphDatabaseServiceTest {
+
+	private static GraphDatabaseService graphDb;
+
+	@BeforeAll
+	static void setUpBeforeClass() throws Exception {
+		graphDb = DatabaseConfig.getGraphDatabaseService();
+	}
+
+	@BeforeEach
+	void setUp() throws Exception {
+		tearDown();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		try (Transaction tx = graphDb.beginTx()) {
+			tx.getAllRelationships().forEach(Relationship::delete);
+			tx.getAllNodes().forEach(Node::delete);
+			tx.commit();
+		}
+	}
+
+	@Test
+	void testExecuteTransactionally() {
+		graphDb.executeTransactionally("create (:L1 {name:'n1'})-[:T1]->(:L2 {name:'n2'})");
+		graphDb.executeTransactionally("create (:L1 {name:$name})", Map.of("name", "n3"));
+		long count = graphDb.executeTransactionally("match (n:L1) return count(n) as count", Collections.emptyMap(),
+				result -> (Long) result.next().get("count"));
+		assertEquals(2, count);
+	}
+
+	@Test
+	void testExecuteTransactionallyEntities() {
+		graphDb.executeTransactionally("create (:L1 {name:'n1'})-[:T1]->(:L2 {name:'n2'})");
+		List<Object> names = graphDb.executeTransactionally("match (n)-[r]->(m) return n, r, m",
+				Collections.emptyMap(), result -> {
+					Map<String, Object> row = result.next();
+					Node n = (Node) row.get("n");
+					Relationship r = (Relationship) row.get("r");
+					assertEquals(n, r.getStartNode());
+					assertEquals(row.get("m"), r.getEndNode());
+					return List.of(n.getProperty("name"), r.getType().name());
+				});
+		assertEquals(List.of("n1", "T1"), names);
+	}
+
+	@Test
+	void testExecuteTransactionallyStatistics() {
+		String query = "unwind range(1, 10) as i create (:L1 {i:i})";
+		int created = graphDb.executeTransactionally(query, Collections.emptyMap(),
+				result -> result.getQueryStatistics().getNodesCreated(), Duration.ofSeconds(10));
+		assertEquals(10, created);
+	}
+
+	@Test
+	void testExecuteTransactionallyStreaming() {
+		graphDb.executeTransactionally("unwind range(1, 10000) as i create (:L1 {i:i})");
+		long first = graphDb.executeTransactionally("match (n:L1) return n.i as i order by i", Collections.emptyMap(),
+				result -> result.<Long>columnAs("i").next());
+		assertEquals(1, first);
+	}
+
+	@Test
+	void testExecuteTransactionallyError() {
+		assertThrows(QueryExecutionException.class, () -> graphDb.executeTransactionally("match (n) retur n"));
+		try (Transaction tx = graphDb.beginTx()) {
+			assertFalse(tx.getAllNodes().iterator().hasNext());
+		}
+	}
+
+	@Test
+	void testMetrics() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		MetricsRegistry previous = remoteDb.getMetricsRegistry();
+		RemoteMetrics metrics = new RemoteMetrics();
+		remoteDb.setMetricsRegistry(metrics);
+		try {
+			try (Transaction tx = remoteDb.beginTx()) {
+				Node node = tx.createNode();
+				node.setProperty("name", "n1");
+				for (int i = 0; i < 10; i++) {
+					assertEquals("n1", node.getProperty("name"));
+				}
+				tx.createNode();
+				assertEquals(2, tx.getAllNodes().stream().count());
+				tx.commit();
+			}
+
+			StatementMetrics getProperty = metrics.getMethods().stream()
+					.filter(m -> m.getMethod().equals("Node.getProperty")).findFirst().get();
+			assertEquals(10, getProperty.getCalls());
+			assertEquals(10, getProperty.getRows());
+			assertEquals(10, getProperty.getRoundTrips());
+			assertTrue(getProperty.getP50Micros() > 0);
+			assertTrue(getProperty.getP50Micros() <= getProperty.getP999Micros());
+			StatementMetrics getAllNodes = metrics.getStatements().stream()
+					.filter(m -> m.getMethod().equals("Transaction.getAllNodes")).findFirst().get();
+			assertEquals(2, getAllNodes.getRows());
+
+			ObjectName name = metrics.registerMBean("test");
+			try {
+				MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+				CompositeData[] methods = (CompositeData[]) server.getAttribute(name, "Methods");
+				assertTrue(methods.length >= 3);
+			} finally {
+				metrics.unregisterMBean();
+			}
+		} finally {
+			remoteDb.setMetricsRegistry(previous);
+		}
+	}
+
+	@Test
+	void testMetricsNestedResults() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		MetricsRegistry previous = remoteDb.getMetricsRegistry();
+		RemoteMetrics metrics = new RemoteMetrics();
+		remoteDb.setMetricsRegistry(metrics);
+		remoteDb.setPropertyCacheEnabled(true);
+		try {
+			remoteDb.executeTransactionally("unwind range(1, 3) as i create (:L1 {i:i})");
+			try (Transaction tx = remoteDb.beginTx()) {
+				// the scan is still read while the statement of each row runs
+				tx.getAllNodes().forEach(node -> node.getProperty("i"));
+				tx.commit();
+			}
+
+			StatementMetrics getAllNodes = metrics.getStatements().stream()
+					.filter(m -> m.getMethod().equals("Transaction.getAllNodes")).findFirst().get();
+			assertEquals(3, getAllNodes.getRows());
+			// recorded for the method called, not the statement the cache loads with
+			StatementMetrics getProperty = metrics.getMethods().stream()
+					.filter(m -> m.getMethod().equals("Node.getProperty")).findFirst().get();
+			assertEquals(3, getProperty.getCalls());
+			assertTrue(metrics.getMethods().stream().noneMatch(m -> m.getMethod().equals("Node.getAllProperties")));
+		} finally {
+			remoteDb.setPropertyCacheEnabled(false);
+			remoteDb.setMetricsRegistry(previous);
+		}
+	}
+
+	@Test
+	void testMetricsTemplatesBounded() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		MetricsRegistry previous = remoteDb.getMetricsRegistry();
+		RemoteMetrics metrics = new RemoteMetrics(2);
+		remoteDb.setMetricsRegistry(metrics);
+		try {
+			for (int i = 0; i < 5; i++) {
+				remoteDb.executeTransactionally("return " + i + " as i");
+			}
+			List<StatementMetrics> statements = metrics.getStatements();
+			assertEquals(3, statements.size());
+			StatementMetrics other = statements.stream().filter(m -> m.getTemplate().equals(RemoteMetrics.OTHER))
+					.findFirst().get();
+			assertEquals(3, other.getCalls());
+			assertEquals(5, metrics.getMethods().get(0).getCalls());
+		} finally {
+			remoteDb.setMetricsRegistry(previous);
+		}
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void testBulkDelete() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		remoteDb.executeTransactionally("unwind range(1, 250) as i create (:L1 {i:i})-[:T1]->(:L2 {i:i})");
+		// nodes with relationships fail their batch unless detached
+		assertThrows(QueryExecutionException.class, () -> remoteDb.delete(BulkDelete.label(Label.label("L1"))));
+
+		List<DeleteProgress> reports = new ArrayList<>();
+		DeleteProgress progress = remoteDb.delete(BulkDelete.label(Label.label("L1")).detach().batchSize(100),
+				reports::add);
+		assertEquals(250, progress.getNodesDeleted());
+		assertEquals(250, progress.getRelationshipsDeleted());
+		assertEquals(1.0, progress.getFraction());
+		assertEquals(progress.getTransactions(), reports.size());
+		assertTrue(reports.size() >= 3);
+		assertTrue(reports.get(0).getFraction() < reports.get(1).getFraction());
+
+		long[] ids = remoteDb.executeTransactionally("match (n:L2) return collect(id(n)) as ids",
+				Collections.emptyMap(),
+				result -> ((List<Long>) result.next().get("ids")).stream().mapToLong(Long::longValue).toArray());
+		progress = remoteDb.delete(BulkDelete.ids(ids[1], ids[0], ids[1], -1));
+		assertEquals(2, progress.getNodesDeleted());
+		assertEquals(1, progress.getTransactions());
+
+		remoteDb.executeTransactionally("create (:L1)-[:T1]->(:L2)");
+		progress = remoteDb.delete(BulkDelete.all());
+		assertEquals(250, progress.getNodesDeleted());
+		assertEquals(1, progress.getRelationshipsDeleted());
+		try (Transaction tx = remoteDb.beginTx()) {
+			assertFalse(tx.getAllNodes().iterator().hasNext());
+		}
+	}
+
+
+	@Test
+	void testBulkImport() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		Path checkpoint = Files.createTempFile("import", ".checkpoint");
+		Supplier<Stream<ImportNode>> nodes = () -> LongStream.range(0, 500).mapToObj(key -> new ImportNode(key * 7,
+				Collections.singletonMap("key", key), Label.label(key % 2 == 0 ? "L1" : "L2")));
+		Supplier<Stream<ImportRelationship>> relationships = () -> LongStream.range(0, 499)
+				.mapToObj(key -> new ImportRelationship(key * 7, (key + 1) * 7,
+						RelationshipType.withName(key % 3 == 0 ? "T1" : "T2")));
+		List<ImportProgress> reports = new ArrayList<>();
+		long id;
+		try (BulkImporter importer = remoteDb.bulkImporter(500)) {
+			importer.setWriters(3);
+			importer.setBatchSize(40);
+			importer.setCheckpoint(checkpoint);
+			importer.setProgressListener(reports::add);
+			assertEquals(500, importer.importNodes(nodes.get()).getNodes());
+			ImportProgress progress = importer.importRelationships(relationships.get());
+			assertEquals(499, progress.getRelationships());
+			assertEquals(progress.getBatches(), reports.size());
+			assertTrue(progress.getRowsPerSecond() > 0);
+			assertThrows(NotFoundException.class, () -> importer.getNodeId(1));
+			id = importer.getNodeId(70);
+		}
+		try (Transaction tx = remoteDb.beginTx()) {
+			Node node = tx.getNodeById(id);
+			assertEquals(10L, node.getProperty("key"));
+			Relationship next = node.getSingleRelationship(RelationshipType.withName("T2"), Direction.OUTGOING);
+			assertEquals(11L, next.getEndNode().getProperty("key"));
+		}
+
+		// running it again from the checkpoint skips all the batches committed
+		try (BulkImporter importer = remoteDb.bulkImporter(500)) {
+			importer.setWriters(3);
+			importer.setBatchSize(40);
+			importer.setCheckpoint(checkpoint);
+			importer.importNodes(nodes.get());
+			ImportProgress progress = importer.importRelationships(relationships.get());
+			assertEquals(0, progress.getBatches());
+			assertEquals(reports.size(), progress.getSkippedBatches());
+			assertEquals(id, importer.getNodeId(70));
+		} finally {
+			Files.delete(checkpoint);
+		}
+		long count = remoteDb.executeTransactionally("match ()-[r]->() return count(r) as count",
+				Collections.emptyMap(), result -> (Long) result.next().get("count"));
+		assertEquals(499, count);
+	}
+
+}
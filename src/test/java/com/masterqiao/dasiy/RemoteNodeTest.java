@@ -30,9 +30,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.NotFoundException;
 import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.RelationshipType;
+import org.neo4j.graphdb.ResourceIterable;
+import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.graphdb.Transaction;
 
 import com.google.common.primitives.Floats;
@@ -167,6 +171,23 @@ class RemoteNodeTest {
 		}
 	}
 
+	@Test
+	void testGetDegreeNewType() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		try (Transaction tx = remoteDb.beginTx()) {
+			assertEquals(3, tx.findNode(L3, "name", "n3").getDegree());
+		}
+		// a type the token registry has not seen, as if created by another client
+		RelationshipType fresh = RelationshipType.withName("FRESH" + System.nanoTime());
+		remoteDb.executeTransactionally("match (n:L3) create (n)-[:" + fresh.name() + "]->(:L4)");
+		try (Transaction tx = remoteDb.beginTx()) {
+			Node n3 = tx.findNode(L3, "name", "n3");
+			assertEquals(4, n3.getDegree());
+			assertTrue(n3.hasRelationship(fresh));
+			assertEquals(1, n3.getDegree(fresh, Direction.OUTGOING));
+		}
+	}
+
 	@Test
 	void testGetDegreeDirection() {
 		try (Transaction tx = graphDb.beginTx()) {
@@ -347,6 +368,26 @@ class RemoteNodeTest {
 		}
 	}
 
+	@Test
+	void testGetRelationshipsStreaming() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		try (Transaction tx = remoteDb.beginTx()) {
+			Node hub = tx.createNode();
+			for (int i = 0; i < 1000; i++) {
+				tx.createNode().createRelationshipTo(hub, T2);
+			}
+			ResourceIterable<Relationship> rels = ((RemoteNode) hub).getRelationships(Direction.INCOMING);
+			try (ResourceIterator<Relationship> it = rels.iterator()) {
+				for (int i = 0; i < 3; i++) {
+					Relationship rel = it.next();
+					assertEquals(hub, rel.getEndNode());
+					assertTrue(rel.isType(T2));
+				}
+			}
+			assertEquals(1000, rels.stream().count());
+		}
+	}
+
 	@Test
 	void testGetRelationshipTypes() {
 		try (Transaction tx = graphDb.beginTx()) {
@@ -385,6 +426,30 @@ class RemoteNodeTest {
 		}
 	}
 
+	@Test
+	void testEscapedIdentifiers() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		Label label = Label.label("odd `label`");
+		RelationshipType type = RelationshipType.withName("odd-type");
+		try (Transaction tx = remoteDb.beginTx()) {
+			Node node = tx.createNode(label);
+			node.setProperty("odd key`", "v1");
+			node.createRelationshipTo(node, type);
+			assertTrue(node.hasLabel(label));
+			assertEquals("v1", node.getProperty("odd key`"));
+			assertTrue(node.hasProperty("odd key`"));
+			assertEquals(node, tx.findNode(label, "odd key`", "v1"));
+			assertTrue(node.hasRelationship(Direction.OUTGOING, type));
+			assertEquals(1, node.getDegree(type, Direction.INCOMING));
+			assertTrue(node.getRelationships(Direction.OUTGOING, type).iterator().hasNext());
+			node.removeProperty("odd key`");
+			assertFalse(node.hasProperty("odd key`"));
+			node.removeLabel(label);
+			assertFalse(node.hasLabel(label));
+			tx.rollback();
+		}
+	}
+
 	@Test
 	void testHasRelationship() {
 		try (Transaction tx = graphDb.beginTx()) {
@@ -455,4 +520,63 @@ class RemoteNodeTest {
 		testRemoveProperty();
 	}
 
+	@Test
+	void testPropertyCache() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		try (RemoteTransaction tx = (RemoteTransaction) remoteDb.beginTx()) {
+			tx.setPropertyCacheEnabled(true);
+			Node n1 = tx.findNode(L1, "name", "n1");
+			assertEquals("n1", n1.getProperty("name"));
+			assertFalse(n1.hasProperty("intValue"));
+
+			n1.setProperty("intValue", 1);
+			n1.setProperty("intArr", new int[] { 1, 2, 3 });
+			assertEquals(1L, n1.getProperty("intValue"));
+			assertEquals(3, ((List<?>) n1.getProperty("intArr")).size());
+
+			Set<String> keys = new HashSet<>();
+			n1.getPropertyKeys().forEach(keys::add);
+			assertEquals(Set.of("name", "intValue", "intArr"), keys);
+
+			assertEquals(1L, n1.removeProperty("intValue"));
+			assertFalse(n1.hasProperty("intValue"));
+			assertEquals(n1.getAllProperties(), tx.getNodeById(n1.getId()).getAllProperties());
+		}
+	}
+
+	@Test
+	void testAdjacency() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		try (Transaction tx = remoteDb.beginTx()) {
+			Node n1 = tx.findNode(L1, "name", "n1");
+			Node n3 = tx.findNode(L3, "name", "n3");
+			assertEquals(3, n3.getDegree());
+			assertEquals(2, n3.getDegree(T1, Direction.INCOMING));
+			assertTrue(n3.hasRelationship(Direction.OUTGOING, T2));
+			assertFalse(n3.hasRelationship(T3));
+
+			// relationships committed after the summary was loaded are not seen
+			try (Transaction other = remoteDb.beginTx()) {
+				other.getNodeById(n1.getId()).createRelationshipTo(other.getNodeById(n3.getId()), T2);
+				other.commit();
+			}
+			assertEquals(3, n3.getDegree());
+
+			// local writes reload it
+			Relationship r = n3.createRelationshipTo(n3, T3);
+			assertEquals(5, n3.getDegree());
+			assertEquals(1, n3.getDegree(T3, Direction.OUTGOING));
+			assertEquals(1, n3.getDegree(T3, Direction.INCOMING));
+			assertEquals(1, n3.getDegree(T3));
+			Set<String> types = new HashSet<>();
+			n3.getRelationshipTypes().forEach(type -> types.add(type.name()));
+			assertEquals(Set.of("T1", "T2", "T3"), types);
+
+			r.delete();
+			assertFalse(n3.hasRelationship(T3));
+			tx.getNodeById(n1.getId()).getSingleRelationship(T2, Direction.OUTGOING).delete();
+			assertEquals(3, n3.getDegree());
+		}
+	}
+
 }
@@ -5,6 +5,7 @@ import static com.masterqiao.dasiy.Labels.LinkTypes.T3;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -309,4 +310,50 @@ class RemoteRelationshipTest {
 		}
 	}
 
+	@Test
+	void testPropertyCache() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		try (RemoteTransaction tx = (RemoteTransaction) remoteDb.beginTx()) {
+			tx.setPropertyCacheEnabled(true);
+			Node n1 = tx.createNode();
+			Node n2 = tx.createNode();
+			Relationship r = n1.createRelationshipTo(n2, T1);
+			assertFalse(r.hasProperty("name"));
+
+			r.setProperty("name", "Knows");
+			r.setProperty("weight", 0.5);
+			assertEquals("Knows", r.getProperty("name"));
+			assertEquals(0.5, r.getProperty("weight"));
+			assertEquals(2, r.getAllProperties().size());
+
+			assertEquals("Knows", r.removeProperty("name"));
+			assertThrows(NotFoundException.class, () -> r.getProperty("name"));
+			assertEquals(r.getAllProperties(), tx.getRelationshipById(r.getId()).getAllProperties());
+		}
+	}
+
+	@Test
+	void testEndpointIds() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		try (RemoteTransaction tx = (RemoteTransaction) remoteDb.beginTx()) {
+			Node n1 = tx.createNode();
+			Node n2 = tx.createNode();
+			long id = n1.createRelationshipTo(n2, T1).getId();
+			for (Relationship relationship : tx.getAllRelationships()) {
+				if (relationship.getId() != id) {
+					continue;
+				}
+				RemoteRelationship r = (RemoteRelationship) relationship;
+				assertEquals(n1.getId(), r.getStartNodeId());
+				assertEquals(n2.getId(), r.getEndNodeId());
+				assertEquals(n2.getId(), r.getOtherNodeId(n1.getId()));
+				assertEquals(n1.getId(), r.getOtherNodeId(n2.getId()));
+				assertThrows(NotFoundException.class, () -> r.getOtherNodeId(-1));
+				// handles are made on demand and stay canonical
+				assertSame(r.getStartNode(), r.getOtherNode(n2));
+				assertEquals(n2, r.getEndNode());
+			}
+		}
+	}
+
 }
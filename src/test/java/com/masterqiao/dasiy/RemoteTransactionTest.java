@@ -7,26 +7,47 @@ import static com.masterqiao.dasiy.Labels.NodeLabels.L1;
 import static com.masterqiao.dasiy.Labels.NodeLabels.L2;
 import static com.masterqiao.dasiy.Labels.NodeLabels.L3;
 import static org.junit.Assert.assertNull;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.neo4j.graphdb.Direction;
+import org.neo4j.graphdb.ExecutionPlanDescription;
 import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
 import org.neo4j.graphdb.MultipleFoundException;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.graphdb.Notification;
+import org.neo4j.graphdb.Path;
 import org.neo4j.graphdb.Relationship;
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.graphdb.Result;
+import org.neo4j.graphdb.StringSearchMode;
 import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.traversal.Evaluators;
 
 class RemoteTransactionTest {
 
@@ -79,6 +100,27 @@ class RemoteTransactionTest {
 		}
 	}
 
+	@Test
+	void testCreateNodes() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		try (RemoteTransaction tx = (RemoteTransaction) remoteDb.beginTx()) {
+			List<Map<String, Object>> properties = new ArrayList<>();
+			for (int i = 0; i < 25000; i++) {
+				properties.add(Map.of("name", "n" + i));
+			}
+			long[] ids = tx.createNodeIds(properties, L1, L2);
+			assertEquals(25000, ids.length);
+			assertEquals("n0", tx.getNodeById(ids[0]).getProperty("name"));
+			assertEquals("n24999", tx.getNodeById(ids[24999]).getProperty("name"));
+			assertTrue(tx.getNodeById(ids[12345]).hasLabel(L2));
+
+			List<Node> nodes = tx.createNodes(3, L3);
+			assertEquals(3, nodes.size());
+			assertTrue(nodes.get(2).hasLabel(L3));
+			assertFalse(nodes.get(2).getPropertyKeys().iterator().hasNext());
+		}
+	}
+
 	@Test
 	void testGetNodeById() {
 		try (Transaction tx = graphDb.beginTx()) {
@@ -91,6 +133,28 @@ class RemoteTransactionTest {
 		}
 	}
 
+	@Test
+	void testCanonicalHandles() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		try (RemoteTransaction tx = (RemoteTransaction) remoteDb.beginTx()) {
+			Node n1 = tx.createNode(L1);
+			n1.setProperty("name", "n1");
+			Node n2 = tx.createNode();
+			Relationship r = n1.createRelationshipTo(n2, T1);
+
+			assertSame(n1, tx.getNodeById(n1.getId()));
+			assertSame(n1, tx.findNode(L1, "name", "n1"));
+			assertSame(r, tx.getRelationshipById(r.getId()));
+			assertSame(n2, tx.getRelationshipById(r.getId()).getEndNode());
+			assertNotSame(n1, n2);
+			assertFalse(n1.equals(n2));
+
+			Set<Node> nodes = new HashSet<>(tx.createNodes(50000));
+			assertEquals(50000, nodes.size());
+			assertEquals(n1, tx.getNodeById(n1.getId()));
+		}
+	}
+
 	@Test
 	void testGetRelationshipById() {
 		try (Transaction tx = graphDb.beginTx()) {
@@ -107,6 +171,107 @@ class RemoteTransactionTest {
 		}
 	}
 
+	@Test
+	void testGetNodesByIds() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		try (RemoteTransaction tx = (RemoteTransaction) remoteDb.beginTx()) {
+			long[] ids = tx.createNodeIds(500, L1);
+			Node n1 = tx.getNodeById(ids[1]);
+			n1.delete();
+
+			long[] requested = { ids[3], ids[1], -1, ids[0], ids[3] };
+			BatchLookup<Node> lookup = tx.getNodesByIds(requested);
+			assertFalse(lookup.isComplete());
+			assertArrayEquals(new long[] { ids[1], -1 }, lookup.getMissingIds());
+			assertEquals(ids[3], lookup.get(0).getId());
+			assertNull(lookup.get(1));
+			assertNull(lookup.get(2));
+			assertEquals(ids[0], lookup.get(3).getId());
+			assertSame(lookup.get(0), lookup.get(4));
+
+			assertTrue(tx.getNodesByIds(LongStream.of(ids).skip(2)).isComplete());
+		}
+	}
+
+	@Test
+	void testHydration() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		try (Transaction tx = remoteDb.beginTx()) {
+			Node n1 = tx.createNode(L1, L2);
+			n1.setProperty("name", "n1");
+			n1.setProperty("age", 10);
+			n1.createRelationshipTo(n1, T1).setProperty("weight", 2);
+			Node n2 = tx.createNode(L3);
+			n2.setProperty("name", "n2");
+			n2.setProperty("age", 10);
+			tx.commit();
+		}
+		try (RemoteTransaction tx = (RemoteTransaction) remoteDb.beginTx()) {
+			Node all = tx.findNodes(L1, "name", "n1", Hydration.ALL).next();
+			Node projected = tx.findNodes(L3, Hydration.properties("name", "missing")).next();
+			Relationship r = ((RemoteNode) all).getRelationships(Hydration.ALL, Direction.OUTGOING).iterator().next();
+
+			// changes committed after hydration are not seen by reads answered locally
+			try (Transaction other = remoteDb.beginTx()) {
+				Node n1 = other.getNodeById(all.getId());
+				n1.setProperty("name", "changed");
+				n1.setProperty("age", 20);
+				n1.removeLabel(L2);
+				n1.getSingleRelationship(T1, Direction.OUTGOING).setProperty("weight", 3);
+				Node n2 = other.getNodeById(projected.getId());
+				n2.setProperty("name", "changed");
+				n2.setProperty("age", 20);
+				other.commit();
+			}
+
+			assertEquals("n1", all.getProperty("name"));
+			assertEquals(10L, all.getProperty("age"));
+			assertTrue(all.hasLabel(L2));
+			assertEquals(2L, r.getProperty("weight"));
+			assertEquals("n2", projected.getProperty("name"));
+			assertFalse(projected.hasProperty("missing"));
+			// keys outside the projection are read from the server
+			assertEquals(20L, projected.getProperty("age"));
+		}
+	}
+
+	@Test
+	void testHydratedScanIsBounded() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		remoteDb.executeTransactionally("unwind range(0, $count) as i create (:L1 {i:i})",
+				Map.of("count", RemoteTransaction.HANDLE_CACHE_SIZE + 100));
+		try (RemoteTransaction tx = (RemoteTransaction) remoteDb.beginTx()) {
+			List<Node> scanned = tx.getAllNodes(Hydration.ALL).stream().collect(Collectors.toList());
+			Node first = scanned.get(0);
+			try (Transaction other = remoteDb.beginTx()) {
+				other.getNodeById(first.getId()).setProperty("i", -1);
+				other.commit();
+			}
+			// the first node was dropped from the cache, so its read goes to the server
+			assertEquals(-1L, first.getProperty("i"));
+		}
+	}
+
+	@Test
+	void testGetRelationshipsByIds() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		try (RemoteTransaction tx = (RemoteTransaction) remoteDb.beginTx()) {
+			Node n1 = tx.createNode();
+			Node n2 = tx.createNode();
+			long r1 = n1.createRelationshipTo(n2, T1).getId();
+			long r2 = n2.createRelationshipTo(n2, T2).getId();
+
+			BatchLookup<Relationship> lookup = tx.getRelationshipsByIds(r2, -1, r1);
+			assertArrayEquals(new long[] { -1 }, lookup.getMissingIds());
+			assertEquals(n2, lookup.get(0).getStartNode());
+			assertEquals(n2, lookup.get(0).getEndNode());
+			assertEquals(T2.name(), lookup.get(0).getType().name());
+			assertNull(lookup.get(1));
+			assertEquals(n1, lookup.get(2).getStartNode());
+			assertEquals(T1.name(), lookup.get(2).getType().name());
+		}
+	}
+
 	@Test
 	void testCommit() {
 		long id = 0L;
@@ -168,59 +333,433 @@ class RemoteTransactionTest {
 		}
 	}
 
+	@Test
+	void testWriteBehind() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		long id1 = 0L;
+		long id2 = 0L;
+		try (RemoteTransaction tx = (RemoteTransaction) remoteDb.beginTx()) {
+			tx.setWriteBehindEnabled(true);
+			tx.setWriteBehindBatchSize(100);
+			Node n1 = tx.createNode();
+			Node n2 = tx.createNode();
+			id1 = n1.getId();
+			id2 = n2.getId();
+			n1.setProperty("name", "Hello");
+			n1.setProperty("name", "n1");
+			n1.addLabel(L1);
+			n1.addLabel(L2);
+			n1.removeLabel(L2);
+			Relationship r = n1.createRelationshipTo(n2, T1);
+			r.setProperty("name", "n1n2");
+			r.delete();
+			n2.delete();
+			n1.setProperty("age", 3);
+			n1.setProperty("city", "c1");
+			// the remove is queued as well, answered from the queue without a flush
+			assertEquals(3L, n1.removeProperty("age"));
+			assertEquals("c1", tx.writeBehind().nodeProperties(id1).get("city"));
+
+			assertEquals("n1", n1.getProperty("name"));
+			assertTrue(n1.hasLabel(L1));
+			assertFalse(n1.hasLabel(L2));
+			tx.commit();
+		}
+		try (Transaction tx = graphDb.beginTx()) {
+			assertEquals("n1", tx.getNodeById(id1).getProperty("name"));
+			assertFalse(tx.getNodeById(id1).hasProperty("age"));
+			assertEquals("c1", tx.getNodeById(id1).getProperty("city"));
+			final long id = id2;
+			assertThrows(NotFoundException.class, () -> tx.getNodeById(id));
+		}
+	}
+
 	@Test
 	void testBidirectionalTraversalDescription() {
-		fail("Not yet implemented");
+		try (Transaction tx = graphDb.beginTx()) {
+			// n1 -T1-> n2 -T1-> n3 -T1-> n4, n1 -T2-> n4
+			Node n1 = tx.createNode(L1);
+			Node n2 = tx.createNode(L1);
+			Node n3 = tx.createNode(L1);
+			Node n4 = tx.createNode(L1);
+			n1.createRelationshipTo(n2, T1);
+			n2.createRelationshipTo(n3, T1);
+			n3.createRelationshipTo(n4, T1);
+			n1.createRelationshipTo(n4, T2);
+
+			List<Path> paths = new ArrayList<>();
+			tx.bidirectionalTraversalDescription()
+					.mirroredSides(tx.traversalDescription().relationships(T1, Direction.OUTGOING))
+					.traverse(n1, n4).forEach(paths::add);
+			assertEquals(1, paths.size());
+			List<Node> nodes = new ArrayList<>();
+			paths.get(0).nodes().forEach(nodes::add);
+			assertEquals(List.of(n1, n2, n3, n4), nodes);
+			tx.commit();
+		}
+	}
+
+	@Test
+	void testBidirectionalTraversalSmallerSide() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		try (RemoteTransaction tx = (RemoteTransaction) remoteDb.beginTx()) {
+			// start fans out to 10 nodes, each with a further node, and one reaches end through mid
+			Node start = tx.createNode();
+			Node mid = tx.createNode();
+			Node end = tx.createNode();
+			for (int i = 0; i < 10; i++) {
+				Node node = tx.createNode();
+				start.createRelationshipTo(node, T1);
+				node.createRelationshipTo(tx.createNode(), T1);
+				if (i == 0) {
+					node.createRelationshipTo(mid, T1);
+				}
+			}
+			mid.createRelationshipTo(end, T1);
+
+			RemoteBidirectionalTraverser traverser = (RemoteBidirectionalTraverser) tx
+					.bidirectionalTraversalDescription()
+					.mirroredSides(tx.traversalDescription().relationships(T1, Direction.OUTGOING))
+					.traverse(start, end);
+			try (ResourceIterator<Path> it = traverser.iterator()) {
+				Path path = it.next();
+				assertEquals(3, path.length());
+				assertEquals(start, path.startNode());
+				assertEquals(end, path.endNode());
+				// the end side is expanded twice rather than the start side again
+				assertEquals(3, traverser.getNumberOfExpansionQueries());
+				assertEquals(12, traverser.metadata().getNumberOfRelationshipsTraversed());
+			}
+			// the path collides again at each of its nodes
+			List<Path> paths = new ArrayList<>();
+			traverser.forEach(paths::add);
+			assertEquals(1, paths.size());
+			tx.commit();
+		}
 	}
 
 	@Test
 	void testTraversalDescription() {
-		fail("Not yet implemented");
+		try (Transaction tx = graphDb.beginTx()) {
+			// n1 -T1-> n2 -T1-> n3 -T1-> n4, n1 -T2-> n5, n2 <-T1- n6
+			Node n1 = tx.createNode(L1);
+			Node n2 = tx.createNode(L1);
+			Node n3 = tx.createNode(L1);
+			Node n4 = tx.createNode(L1);
+			Node n5 = tx.createNode(L1);
+			Node n6 = tx.createNode(L1);
+			n1.createRelationshipTo(n2, T1);
+			n2.createRelationshipTo(n3, T1);
+			n3.createRelationshipTo(n4, T1);
+			n1.createRelationshipTo(n5, T2);
+			n6.createRelationshipTo(n2, T1);
+
+			List<Node> nodes = new ArrayList<>();
+			tx.traversalDescription().relationships(T1, Direction.OUTGOING).evaluator(Evaluators.toDepth(2))
+					.traverse(n1).nodes().forEach(nodes::add);
+			assertEquals(List.of(n1, n2, n3), nodes);
+
+			List<Path> paths = new ArrayList<>();
+			tx.traversalDescription().relationships(T1).relationships(T2, Direction.OUTGOING)
+					.evaluator(Evaluators.atDepth(2)).traverse(n1).forEach(paths::add);
+			assertEquals(2, paths.size());
+			Set<Node> ends = new HashSet<>();
+			for (Path path : paths) {
+				assertEquals(n1, path.startNode());
+				assertEquals(2, path.length());
+				ends.add(path.endNode());
+			}
+			assertEquals(Set.of(n3, n6), ends);
+
+			Set<Node> reversed = new HashSet<>();
+			tx.traversalDescription().relationships(T1, Direction.OUTGOING).reverse().traverse(n4).nodes()
+					.forEach(reversed::add);
+			assertEquals(Set.of(n4, n3, n2, n1, n6), reversed);
+			tx.commit();
+		}
 	}
 
 	@Test
-	void testExecuteString() {
-		fail("Not yet implemented");
+	void testTraversalExpansionQueries() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		try (RemoteTransaction tx = (RemoteTransaction) remoteDb.beginTx()) {
+			// a complete binary tree of depth 5
+			Node root = tx.createNode();
+			List<Node> level = List.of(root);
+			for (int depth = 0; depth < 5; depth++) {
+				List<Node> children = new ArrayList<>();
+				for (Node parent : level) {
+					for (int i = 0; i < 2; i++) {
+						Node child = tx.createNode();
+						parent.createRelationshipTo(child, T1);
+						children.add(child);
+					}
+				}
+				level = children;
+			}
+
+			RemoteTraverser traverser = (RemoteTraverser) tx.traversalDescription()
+					.relationships(T1, Direction.OUTGOING).traverse(root);
+			int count = 0;
+			for (Path path : traverser) {
+				assertTrue(path.length() <= 5);
+				count++;
+			}
+			assertEquals(63, count);
+			assertEquals(63, traverser.metadata().getNumberOfPathsReturned());
+			// one query per level, the leaves included
+			assertEquals(6, traverser.getNumberOfExpansionQueries());
+			tx.commit();
+		}
 	}
 
 	@Test
-	void testExecuteStringMapOfStringObject() {
-		fail("Not yet implemented");
+	void testExecuteString() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		try (Transaction tx = remoteDb.beginTx()) {
+			Result created = tx.execute("create (:L1 {name:'n1'})-[:T1]->(:L2 {name:'n2'})");
+			assertEquals(2, created.getQueryStatistics().getNodesCreated());
+			assertEquals(1, created.getQueryStatistics().getRelationshipsCreated());
+
+			Result result = tx.execute("match (n:L1)-[r:T1]->(m) return n, r, m.name as name");
+			assertEquals(List.of("n", "r", "name"), result.columns());
+			Map<String, Object> row = result.next();
+			Node n = (Node) row.get("n");
+			assertEquals("n1", n.getProperty("name"));
+			assertEquals(n, ((Relationship) row.get("r")).getStartNode());
+			assertEquals("n2", row.get("name"));
+			assertFalse(result.hasNext());
+		}
+	}
+
+	@Test
+	void testExecuteStringMapOfStringObject() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		try (Transaction tx = remoteDb.beginTx()) {
+			Node node = tx.execute("create (n:L1 {name:$name}) return n", Map.of("name", "n1")).<Node>columnAs("n")
+					.next();
+			assertEquals("n1", node.getProperty("name"));
+			long count = tx.execute("match (n:L1) where n.name = $name return count(n) as count", Map.of("name", "n1"))
+					.<Long>columnAs("count").next();
+			assertEquals(1, count);
+		}
+	}
+
+	@Test
+	void testExecutionPlanDescription() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		try (Transaction tx = remoteDb.beginTx()) {
+			tx.createNode(L1);
+			assertNull(tx.execute("match (n:L1) return n").getExecutionPlanDescription());
+
+			ExecutionPlanDescription plan = tx.execute("explain match (n:L1) return n").getExecutionPlanDescription();
+			assertFalse(plan.getChildren().isEmpty());
+			assertTrue(plan.getIdentifiers().contains("n"));
+			assertFalse(plan.hasProfilerStatistics());
+
+			Result profiled = tx.execute("profile match (n:L1) return n");
+			assertTrue(profiled.hasNext());
+			plan = profiled.getExecutionPlanDescription();
+			assertTrue(plan.hasProfilerStatistics());
+			assertEquals(1, plan.getProfilerStatistics().getRows());
+		}
+	}
+
+	@Test
+	void testExecutePath() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		try (Transaction tx = remoteDb.beginTx()) {
+			Node n1 = tx.createNode(L1);
+			Node n2 = tx.createNode(L2);
+			Relationship r = n1.createRelationshipTo(n2, T1);
+			List<Path> paths = new ArrayList<>();
+			tx.execute("match p = (:L1)-[:T1]->(:L2) return p").accept(row -> paths.add(row.getPath("p")));
+			assertEquals(1, paths.size());
+			Path path = paths.get(0);
+			assertEquals(1, path.length());
+			assertEquals(n1, path.startNode());
+			assertEquals(n2, path.endNode());
+			assertEquals(r, path.lastRelationship());
+		}
+	}
+
+	@Test
+	void testExecuteNotifications() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		try (Transaction tx = remoteDb.beginTx()) {
+			Iterator<Notification> notifications = tx.execute("explain match (n:L1), (m:L2) return n, m")
+					.getNotifications().iterator();
+			assertTrue(notifications.hasNext());
+			assertNotNull(notifications.next().getCode());
+		}
 	}
 
 	@Test
 	void testGetAllLabelsInUse() {
-		fail("Not yet implemented");
+		try (Transaction tx = graphDb.beginTx()) {
+			tx.createNode(L1, L2);
+			Set<String> names = new HashSet<>();
+			tx.getAllLabelsInUse().forEach(label -> names.add(label.name()));
+			assertEquals(Set.of("L1", "L2"), names);
+		}
 	}
 
 	@Test
 	void testGetAllRelationshipTypesInUse() {
-		fail("Not yet implemented");
+		try (Transaction tx = graphDb.beginTx()) {
+			Node node = tx.createNode();
+			node.createRelationshipTo(node, T2);
+			Set<String> names = new HashSet<>();
+			tx.getAllRelationshipTypesInUse().forEach(type -> names.add(type.name()));
+			assertEquals(Set.of("T2"), names);
+		}
 	}
 
 	@Test
 	void testGetAllLabels() {
-		fail("Not yet implemented");
+		try (Transaction tx = graphDb.beginTx()) {
+			tx.createNode(L3);
+			Set<String> names = new HashSet<>();
+			tx.getAllLabels().forEach(label -> names.add(label.name()));
+			assertTrue(names.contains("L3"));
+		}
 	}
 
 	@Test
 	void testGetAllRelationshipTypes() {
-		fail("Not yet implemented");
+		try (Transaction tx = graphDb.beginTx()) {
+			Node node = tx.createNode();
+			node.createRelationshipTo(node, T3);
+			Set<String> names = new HashSet<>();
+			tx.getAllRelationshipTypes().forEach(type -> names.add(type.name()));
+			assertTrue(names.contains("T3"));
+		}
 	}
 
 	@Test
 	void testGetAllPropertyKeys() {
-		fail("Not yet implemented");
+		try (Transaction tx = graphDb.beginTx()) {
+			tx.createNode().setProperty("propertyKey", 1);
+			Set<String> keys = new HashSet<>();
+			tx.getAllPropertyKeys().forEach(keys::add);
+			assertTrue(keys.contains("propertyKey"));
+		}
+	}
+
+	@Test
+	void testTokenRegistry() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		Label label;
+		try (Transaction tx = remoteDb.beginTx()) {
+			label = tx.createNode(L1).getLabels().iterator().next();
+			tx.commit();
+		}
+		// the token objects are shared by the transactions of the service
+		try (Transaction tx = remoteDb.beginTx()) {
+			assertSame(label, tx.findNodes(L1).next().getLabels().iterator().next());
+			boolean found = false;
+			for (Label l : tx.getAllLabels()) {
+				found |= l == label;
+			}
+			assertTrue(found);
+		}
+	}
+
+	@Test
+	void testRepeatedStatements() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		try (Transaction tx = remoteDb.beginTx()) {
+			for (int i = 0; i < 5; i++) {
+				tx.createNode(L1).setProperty("name", "n" + i);
+			}
+			tx.commit();
+		}
+		List<RepeatedStatement> reports = new ArrayList<>();
+		try (RemoteTransaction tx = (RemoteTransaction) remoteDb.beginTx()) {
+			tx.setRepeatedStatementListener(reports::add);
+			tx.setRepeatedStatementThreshold(3);
+			// one lookup per node found
+			List<Node> found = new ArrayList<>();
+			tx.findNodes(L1).forEachRemaining(node -> {
+				node.getProperty("name");
+				found.add(node);
+			});
+			// the same node again is not another entity
+			Node node = found.get(found.size() - 1);
+			for (int i = 0; i < 5; i++) {
+				node.getProperty("name");
+			}
+			tx.setHydration(Hydration.ALL);
+			tx.findNodes(L1).forEachRemaining(n -> n.getProperty("name"));
+			tx.commit();
+		}
+		assertEquals(1, reports.size());
+		RepeatedStatement report = reports.get(0);
+		assertEquals("Node.getProperty", report.getMethod());
+		assertEquals(5, report.getCount());
+		assertEquals(RemoteTransactionTest.class.getName(), report.getCallSite().getClassName());
+		assertTrue(report.getSuggestion().contains("setHydration"));
+
+		// several keys read per node still count one repeat per node
+		reports.clear();
+		try (RemoteTransaction tx = (RemoteTransaction) remoteDb.beginTx()) {
+			tx.setRepeatedStatementListener(reports::add);
+			tx.setRepeatedStatementThreshold(3);
+			tx.findNodes(L1).forEachRemaining(node -> {
+				node.getProperty("name");
+				node.getProperty("age", 0L);
+			});
+			tx.commit();
+		}
+		assertEquals(1, reports.size());
+		assertEquals(5, reports.get(0).getCount());
+		assertThrows(IllegalArgumentException.class, () -> remoteDb.setRepeatedStatementThreshold(1));
 	}
 
 	@Test
 	void testFindNodesLabelStringStringStringSearchMode() {
-		fail("Not yet implemented");
+		try (Transaction tx = graphDb.beginTx()) {
+			for (String name : new String[] { "apple", "apricot", "banana", "pineapple" }) {
+				tx.createNode(L1).setProperty("name", name);
+			}
+			tx.createNode(L2).setProperty("name", "apple");
+
+			assertEquals(Set.of("apple"), names(tx.findNodes(L1, "name", "apple", StringSearchMode.EXACT)));
+			assertEquals(Set.of("apple", "apricot"), names(tx.findNodes(L1, "name", "ap", StringSearchMode.PREFIX)));
+			assertEquals(Set.of("apple", "pineapple"),
+					names(tx.findNodes(L1, "name", "apple", StringSearchMode.SUFFIX)));
+			assertEquals(Set.of("apple", "pineapple", "apricot"),
+					names(tx.findNodes(L1, "name", "p", StringSearchMode.CONTAINS)));
+			assertEquals(Set.of(), names(tx.findNodes(L1, "missing", "a", StringSearchMode.PREFIX)));
+		}
+	}
+
+	private static Set<String> names(ResourceIterator<Node> nodes) {
+		Set<String> names = new HashSet<>();
+		nodes.forEachRemaining(node -> names.add((String) node.getProperty("name")));
+		return names;
 	}
 
 	@Test
 	void testFindNodesLabelMapOfStringObject() {
-		fail("Not yet implemented");
+		try (Transaction tx = graphDb.beginTx()) {
+			Node n1 = tx.createNode(L1);
+			n1.setProperty("name", "n1");
+			n1.setProperty("intVal", 1);
+			n1.setProperty("doubleVal", 2.);
+			Node n2 = tx.createNode(L1);
+			n2.setProperty("name", "n2");
+			n2.setProperty("intVal", 1);
+			n2.setProperty("doubleVal", 3.);
+			Node n3 = tx.createNode(L2);
+			n3.setProperty("name", "n3");
+			n3.setProperty("intVal", 1);
+			n3.setProperty("doubleVal", 2.);
+
+			assertEquals(Set.of("n1"), names(tx.findNodes(L1, Map.of("intVal", 1, "doubleVal", 2.))));
+			assertEquals(Set.of("n1", "n2"), names(tx.findNodes(L1, Map.of("intVal", 1))));
+			assertEquals(Set.of(), names(tx.findNodes(L1, Map.of("intVal", 2, "name", "n1"))));
+		}
 	}
 
 	@Test
@@ -401,7 +940,102 @@ class RemoteTransactionTest {
 			Set<String> actual = new HashSet<>();
 			tx.getAllRelationships().forEach(rel -> actual.add((String) rel.getProperty("name")));
 			assertEquals(expected, actual);
+			// each relationship once, not once per direction
+			assertEquals(expected.size(), tx.getAllRelationships().stream().count());
+		}
+	}
+
+	@Test
+	void testParallelScans() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		long count = 4 * RangeScan.MIN_RANGE;
+		remoteDb.executeTransactionally("unwind range(1, $count) as i create (:L1)-[:T1]->(:L1)",
+				Map.of("count", count));
+		MetricsRegistry previous = remoteDb.getMetricsRegistry();
+		RemoteMetrics metrics = new RemoteMetrics();
+		remoteDb.setMetricsRegistry(metrics);
+		remoteDb.setParallelScansEnabled(true);
+		try (Transaction tx = remoteDb.beginTx()) {
+			Set<Long> sequential = new HashSet<>();
+			tx.getAllNodes().forEach(node -> sequential.add(node.getId()));
+			assertEquals(2 * count, sequential.size());
+			assertEquals(sequential, tx.getAllNodes().stream().parallel().map(Node::getId).collect(Collectors.toSet()));
+			assertEquals(count, tx.getAllRelationships().stream().parallel().mapToLong(Relationship::getId).distinct()
+					.count());
+			// entities are usable within the stream
+			assertEquals(count, tx.getAllRelationships().stream().parallel()
+					.filter(rel -> rel.getStartNode().hasLabel(L1)).count());
+			assertTrue(metrics.getStatements().stream()
+					.anyMatch(statement -> statement.getTemplate().startsWith("unwind range($from")));
+		} finally {
+			remoteDb.setMetricsRegistry(previous);
+			remoteDb.setParallelScansEnabled(false);
+			remoteDb.delete(BulkDelete.label(L1).detach());
+		}
+	}
+
+	@Test
+	void testParallelScanAboveCount() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		long count = 4 * RangeScan.MIN_RANGE;
+		remoteDb.executeTransactionally("unwind range(1, $count) as i create (:L1)", Map.of("count", 2 * count));
+		// deleting the lowest ids leaves ids above the count, still split up to the highest id
+		remoteDb.executeTransactionally("match (n:L1) with n order by id(n) limit $gap delete n",
+				Map.of("gap", count));
+		remoteDb.setParallelScansEnabled(true);
+		try (Transaction tx = remoteDb.beginTx()) {
+			Set<Long> sequential = new HashSet<>();
+			tx.getAllNodes().forEach(node -> sequential.add(node.getId()));
+			assertEquals(count, sequential.size());
+			assertEquals(sequential, tx.getAllNodes().stream().parallel().map(Node::getId).collect(Collectors.toSet()));
+		} finally {
+			remoteDb.setParallelScansEnabled(false);
+			remoteDb.delete(BulkDelete.label(L1));
+		}
+	}
+
+	@Test
+	void testParallelScanClose() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		remoteDb.executeTransactionally("unwind range(1, $count) as i create (:L1)",
+				Map.of("count", 4 * RangeScan.MIN_RANGE));
+		remoteDb.setParallelScansEnabled(true);
+		try (RemoteTransaction tx = (RemoteTransaction) remoteDb.beginTx()) {
+			Stream<Node> stream = tx.getAllNodes().stream();
+			Spliterator<Node> spliterator = stream.spliterator();
+			Spliterator<Node> prefix = spliterator.trySplit();
+			assertNotNull(prefix);
+			assertTrue(prefix.tryAdvance(node -> {
+			}));
+			assertEquals(1, tx.openScans());
+			// closing the stream ends the range transactions left open
+			stream.close();
+			assertEquals(0, tx.openScans());
+			assertFalse(prefix.tryAdvance(node -> {
+			}));
+		} finally {
+			remoteDb.setParallelScansEnabled(false);
+			remoteDb.delete(BulkDelete.label(L1));
+		}
+	}
+
+	@Test
+	void testFetchSize() throws Exception {
+		RemoteGraphDatabaseService remoteDb = DatabaseConfig.getRemoteGraphDatabaseService();
+		try (RemoteTransaction tx = remoteDb.beginTx(10)) {
+			assertEquals(10, tx.getFetchSize());
+			tx.createNodeIds(25, L1);
+			try (RemoteTransaction.NodeResourceIterator it = (RemoteTransaction.NodeResourceIterator) tx.findNodes(L1)) {
+				it.next();
+				assertEquals(1, it.getConsumedCount());
+				// reads on across the batches pulled
+				while (it.hasNext()) {
+					it.next();
+				}
+				assertEquals(25, it.getConsumedCount());
+			}
 		}
+		assertThrows(IllegalArgumentException.class, () -> remoteDb.setFetchSize(0));
 	}
 
 	@Test